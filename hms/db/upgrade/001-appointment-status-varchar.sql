@@ -0,0 +1,14 @@
+-- Widens appointment.status from the original native ENUM to VARCHAR(20), required
+-- before deploying the NO_SHOW status (no-show sweeper, bulk status PATCH).
+--
+-- Only databases created before the entity declared columnDefinition = "varchar(20)"
+-- need it: spring.jpa.hibernate.ddl-auto=update never changes an existing column type.
+-- Check first; nothing to do unless this returns 'enum':
+--
+--   SELECT DATA_TYPE FROM information_schema.COLUMNS
+--   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'appointment' AND COLUMN_NAME = 'status';
+--
+-- The ALTER rebuilds the table and blocks writes to it while it runs; apply it in a
+-- maintenance window, with the application stopped, before starting the new version.
+
+ALTER TABLE appointment MODIFY status VARCHAR(20) NOT NULL;
@@ -0,0 +1,90 @@
+package com.example.hms.controller;
+
+import com.example.hms.dto.TextCompressionReport;
+import com.example.hms.service.ExportService;
+import com.example.hms.service.TextCompressionJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private TextCompressionJob textCompressionJob;
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * GET /api/admin/text-compression
+     * Allows: ADMIN. Storage saved versus CPU cost of the latest recompression run.
+     */
+    @GetMapping("/text-compression")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TextCompressionReport> getTextCompressionReport() {
+        return ResponseEntity.ok(textCompressionJob.report());
+    }
+
+    /**
+     * POST /api/admin/text-compression
+     * Allows: ADMIN. Starts recompressing existing notes and reasons in the background;
+     * poll the GET endpoint for progress.
+     */
+    @PostMapping("/text-compression")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TextCompressionReport> startTextCompression() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(textCompressionJob.start());
+    }
+
+    // --- Bulk Export ---
+
+    /**
+     * GET /api/admin/export/appointments?from=2025-09-01&to=2025-10-01&gzip=true
+     * Allows: ADMIN. Streams appointments as NDJSON (one object per line), optionally
+     * gzipped; from is inclusive, to exclusive, both optional.
+     */
+    @GetMapping("/export/appointments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(defaultValue = "false") boolean gzip) {
+        return ndjson("appointments", gzip, out -> exportService.exportAppointments(out, from, to, gzip));
+    }
+
+    /**
+     * GET /api/admin/export/records?from=2025-09-01&to=2025-10-01&gzip=true
+     * Allows: ADMIN. Streams medical records, including consultation notes, as NDJSON.
+     */
+    @GetMapping("/export/records")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportRecords(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(defaultValue = "false") boolean gzip) {
+        return ndjson("records", gzip, out -> exportService.exportRecords(out, from, to, gzip));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(String name, boolean gzip, StreamingResponseBody body) {
+        String fileName = name + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+            .contentType(MediaType.valueOf(gzip ? "application/gzip" : "application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+            .body(body);
+    }
+}
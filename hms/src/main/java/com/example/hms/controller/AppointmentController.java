@@ -2,14 +2,33 @@
 package com.example.hms.controller;
 
 import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentFilter;
 import com.example.hms.dto.AppointmentRequest;
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.dto.BulkStatusRequest;
+import com.example.hms.dto.BulkStatusResult;
+import com.example.hms.dto.ChangeSet;
+import com.example.hms.dto.CursorPage;
+import com.example.hms.dto.FreeSlotDto;
+import com.example.hms.dto.SeriesBookingResult;
+import com.example.hms.dto.SeriesRequest;
+import com.example.hms.dto.SlotHoldDto;
+import com.example.hms.dto.SlotHoldRequest;
+import com.example.hms.service.AppointmentBulkService;
+import com.example.hms.service.AppointmentEventBroadcaster;
 import com.example.hms.service.AppointmentService;
+import com.example.hms.service.FreeSlotService;
+import com.example.hms.service.IdempotencyService;
+import com.example.hms.service.VersionCounters;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
 import org.springframework.web.bind.annotation.PatchMapping; // <-- NEW IMPORT
 import org.springframework.web.bind.annotation.PathVariable; // <-- NEW IMPORT
@@ -22,13 +41,59 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private FreeSlotService freeSlotService;
+
+    @Autowired
+    private AppointmentBulkService bulkService;
+
+    @Autowired
+    private AppointmentEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private VersionCounters versionCounters;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
-    public ResponseEntity<AppointmentDto> bookAppointment(@Valid @RequestBody AppointmentRequest request) {
-        AppointmentDto appointment = appointmentService.bookAppointment(request);
+    public ResponseEntity<AppointmentDto> bookAppointment(@Valid @RequestBody AppointmentRequest request,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // A retried request with the same key gets the original appointment back
+        AppointmentDto appointment = idempotencyService.execute(idempotencyKey, "book-appointment", request,
+            () -> appointmentService.bookAppointment(request));
         return ResponseEntity.ok(appointment);
     }
 
+    /**
+     * POST /api/appointments/series
+     * Books a weekly recurring series (e.g. physiotherapy, dialysis) in one transaction.
+     */
+    @PostMapping("/series")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<SeriesBookingResult> bookSeries(@Valid @RequestBody SeriesRequest request) {
+        return ResponseEntity.ok(appointmentService.bookSeries(request));
+    }
+
+    /**
+     * POST /api/appointments/holds
+     * Holds a free slot for a few minutes while the booking form is completed; booking it
+     * through POST /api/appointments before expiresAt cannot lose the slot to someone else.
+     */
+    @PostMapping("/holds")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<SlotHoldDto> holdSlot(@Valid @RequestBody SlotHoldRequest request) {
+        return ResponseEntity.ok(appointmentService.placeHold(request));
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId) {
+        appointmentService.releaseHold(holdId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
     public ResponseEntity<AppointmentDto> updateAppointmentStatus(
@@ -38,22 +103,89 @@ public class AppointmentController {
         AppointmentDto updatedAppt = appointmentService.updateStatus(id, status);
         return ResponseEntity.ok(updatedAppt);
     }
+
+    /**
+     * PATCH /api/appointments/status
+     * Body: { "appointmentIds": [1, 2, 3], "status": "COMPLETED" }
+     * Updates many appointments in one transaction; IDs the caller may not change are skipped.
+     */
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<BulkStatusResult> updateAppointmentStatuses(@Valid @RequestBody BulkStatusRequest request) {
+        return ResponseEntity.ok(bulkService.updateStatuses(request));
+    }
     @GetMapping("/my")
     @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
-    public ResponseEntity<List<AppointmentDto>> getMyAppointments(
-        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        
-        // Pass the date parameters to the service layer
-        List<AppointmentDto> appointments = appointmentService.getAppointmentsForCurrentUser(startDate, endDate);
-        return ResponseEntity.ok(appointments);
+    public ResponseEntity<List<AppointmentSummaryDto>> getMyAppointments(AppointmentFilter filter, WebRequest webRequest) {
+        // 304 without touching the database while nothing in the caller's scope has changed
+        if (ETags.notModified(webRequest, versionCounters.currentUserTag())) {
+            return null;
+        }
+        // Query parameters (dates, status, doctorId, patientId, specialization, direction,
+        // cursor, limit) are bound onto the filter and pushed into SQL by the service layer
+        CursorPage<AppointmentSummaryDto> page = appointmentService.getAppointmentsForCurrentUser(filter);
+        return PageHeaders.ok(page);
     }
     @GetMapping("/today")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<List<AppointmentDto>> getTodayAppointments() {
+    public ResponseEntity<List<AppointmentSummaryDto>> getTodayAppointments(WebRequest webRequest) {
+        // "Today" also changes at midnight, so the date is part of the tag
+        if (ETags.notModified(webRequest, versionCounters.currentUserTag(), LocalDate.now().toString())) {
+            return null;
+        }
         // Calls the new service method
-        List<AppointmentDto> appointments = appointmentService.getTodayAppointmentsForDoctor();
+        List<AppointmentSummaryDto> appointments = appointmentService.getTodayAppointmentsForDoctor();
         return ResponseEntity.ok(appointments);
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * GET /api/appointments/changes?since=1234&limit=100
+     * Delta sync: only appointments booked, updated or cancelled after the client's last
+     * nextSince (0 for a first full sync), in the caller's scope.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<ChangeSet<AppointmentSummaryDto>> getAppointmentChanges(
+        @RequestParam(defaultValue = "0") long since,
+        @RequestParam(required = false) Integer limit) {
+
+        return ResponseEntity.ok(appointmentService.getAppointmentChangesForCurrentUser(since, limit));
+    }
+
+    /**
+     * GET /api/appointments/{id}
+     * Full appointment including the reason text; list endpoints only return summaries.
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<AppointmentDto> getAppointmentById(@PathVariable Long id) {
+        return ResponseEntity.ok(appointmentService.getAppointmentById(id));
+    }
+
+    /**
+     * GET /api/appointments/free-slots?specialization=Cardiology&from=2025-01-06&to=2025-01-12&count=5
+     * Next free slots for a doctor or a specialization, earliest first.
+     */
+    @GetMapping("/free-slots")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<List<FreeSlotDto>> getFreeSlots(
+        @RequestParam(required = false) String specialization,
+        @RequestParam(required = false) Long doctorId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) Integer count) {
+
+        return ResponseEntity.ok(freeSlotService.findFreeSlots(specialization, doctorId, from, to, count));
+    }
+
+    /**
+     * GET /api/appointments/stream
+     * Server-Sent Events feed of appointment changes visible to the caller: bookings,
+     * status changes and new records, each as an "appointment" event with a small delta.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public SseEmitter streamAppointmentEvents() {
+        return eventBroadcaster.subscribe();
+    }
+}
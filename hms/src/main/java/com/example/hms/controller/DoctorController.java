@@ -3,12 +3,14 @@ package com.example.hms.controller;
 
 import com.example.hms.dto.DoctorListDto;
 import com.example.hms.service.DoctorService;
+import com.example.hms.service.VersionCounters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
 @RestController
@@ -18,13 +20,20 @@ public class DoctorController {
     @Autowired
     private DoctorService doctorService;
 
+    @Autowired
+    private VersionCounters versionCounters;
+
     /**
      * GET /api/doctors
      * Allows: Any authenticated user (Admin, Patient, Doctor) to see all doctors.
+     * Answers 304 Not Modified while the directory is unchanged.
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()") // Only requires a valid JWT token
-    public ResponseEntity<List<DoctorListDto>> getAllDoctors() {
+    public ResponseEntity<List<DoctorListDto>> getAllDoctors(WebRequest webRequest) {
+        if (ETags.notModified(webRequest, versionCounters.doctorDirectoryTag())) {
+            return null;
+        }
         List<DoctorListDto> doctors = doctorService.getAllDoctors();
         return ResponseEntity.ok(doctors);
     }
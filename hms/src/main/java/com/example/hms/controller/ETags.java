@@ -0,0 +1,34 @@
+package com.example.hms.controller;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conditional GET support for list endpoints. The ETag combines a version tag from
+ * VersionCounters with the query string, so different filters or pages of the same
+ * scope never share a tag.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Sets the ETag on the response and returns true when the client's If-None-Match
+     * already matches; the caller then returns null and Spring sends 304 Not Modified.
+     */
+    static boolean notModified(WebRequest request, String versionTag, String... extra) {
+        StringBuilder etag = new StringBuilder("\"").append(versionTag);
+        String query = request instanceof ServletWebRequest servlet ? servlet.getRequest().getQueryString() : null;
+        if (query != null) {
+            etag.append('-').append(DigestUtils.md5DigestAsHex(query.getBytes(StandardCharsets.UTF_8)));
+        }
+        for (String part : extra) {
+            etag.append('-').append(part);
+        }
+        return request.checkNotModified(etag.append('"').toString());
+    }
+}
@@ -1,19 +1,34 @@
 // src/main/java/com/example/hms/controller/MedicalRecordController.java
 package com.example.hms.controller;
 
+import com.example.hms.dto.ChangeSet;
+import com.example.hms.dto.CursorPage;
 import com.example.hms.dto.MedicalRecordDto;
 import com.example.hms.dto.MedicalRecordRequest;
+import com.example.hms.dto.MedicalRecordSummaryDto;
+import com.example.hms.dto.RecordAttachmentDto;
+import com.example.hms.service.IdempotencyService;
 import com.example.hms.service.MedicalRecordService;
+import com.example.hms.service.RecordAttachmentService;
+import com.example.hms.service.RecordSearchIndex;
+import com.example.hms.service.VersionCounters;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -23,15 +38,63 @@ public class MedicalRecordController {
     @Autowired
     private MedicalRecordService recordService;
 
+    @Autowired
+    private VersionCounters versionCounters;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private RecordSearchIndex recordSearchIndex;
+
+    @Autowired
+    private RecordAttachmentService attachmentService;
+
     /**
      * GET /api/records/my
-     * Lists records accessible by the logged-in user (filtered by role).
+     * Lists records accessible by the logged-in user (filtered by role), one page at a time.
+     * Rows are summaries without consultation notes; GET /api/records/{id} has the full text.
+     * The cursor for the next page is returned in the X-Next-Cursor header.
+     * Answers 304 Not Modified while nothing in the caller's scope has changed.
      */
     @GetMapping("/my")
     @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
-    public ResponseEntity<List<MedicalRecordDto>> getMyAccessibleRecords() {
-        List<MedicalRecordDto> records = recordService.getRecordsAccessibleByCurrentUser();
-        return ResponseEntity.ok(records);
+    public ResponseEntity<List<MedicalRecordSummaryDto>> getMyAccessibleRecords(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        WebRequest webRequest) {
+        if (ETags.notModified(webRequest, versionCounters.currentUserTag())) {
+            return null;
+        }
+        CursorPage<MedicalRecordSummaryDto> page = recordService.getRecordsAccessibleByCurrentUser(cursor, limit);
+        return PageHeaders.ok(page);
+    }
+
+    /**
+     * GET /api/records/search?q=diab* "chest pain"&patientId=12&limit=20
+     * Full-text search over diagnosis and consultation notes within the caller's records:
+     * plain terms, prefix terms (word*) and "quoted phrases", all of which must match.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<List<MedicalRecordSummaryDto>> searchRecords(
+        @RequestParam("q") String query,
+        @RequestParam(required = false) Long patientId,
+        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(recordSearchIndex.search(query, patientId, limit));
+    }
+
+    /**
+     * GET /api/records/changes?since=1234&limit=100
+     * Delta sync: only records written after the client's last nextSince (0 for a first
+     * full sync), in the caller's scope.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PATIENT', 'DOCTOR')")
+    public ResponseEntity<ChangeSet<MedicalRecordSummaryDto>> getRecordChanges(
+        @RequestParam(defaultValue = "0") long since,
+        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(recordService.getRecordChangesForCurrentUser(since, limit));
     }
     
     /**
@@ -40,15 +103,60 @@ public class MedicalRecordController {
      */
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
-    public ResponseEntity<MedicalRecordDto> createMedicalRecord(@Valid @RequestBody MedicalRecordRequest request) {
-        MedicalRecordDto record = recordService.createRecord(request);
+    public ResponseEntity<MedicalRecordDto> createMedicalRecord(@Valid @RequestBody MedicalRecordRequest request,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // A retried request with the same key gets the original record back
+        MedicalRecordDto record = idempotencyService.execute(idempotencyKey, "create-record", request,
+            () -> recordService.createRecord(request));
         return ResponseEntity.ok(record);
     }
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
     public ResponseEntity<MedicalRecordDto> getRecordById(@PathVariable Long id) {
-        // NOTE: Service layer must enforce RBAC (Doctor only sees their own patients' records)
+        // RBAC is enforced inside the fetch query (admin, authoring doctor or the patient)
         MedicalRecordDto record = recordService.getRecordById(id); 
         return ResponseEntity.ok(record);
     }
+
+    // --- Attachments ---
+
+    /**
+     * POST /api/records/{id}/attachments?fileName=report.pdf
+     * Allows: Admins and the authoring doctor. The request body is the raw file (not
+     * multipart) with its Content-Type; it is streamed to disk, never held in memory.
+     */
+    @PostMapping("/{id}/attachments")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<RecordAttachmentDto> uploadAttachment(@PathVariable Long id,
+        @RequestParam String fileName,
+        HttpServletRequest request) throws IOException {
+        RecordAttachmentDto attachment = attachmentService.upload(id, fileName, request.getContentType(),
+            request.getInputStream());
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachment);
+    }
+
+    /**
+     * GET /api/records/{id}/attachments
+     * Allows: Anyone who may view the record.
+     */
+    @GetMapping("/{id}/attachments")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
+    public ResponseEntity<List<RecordAttachmentDto>> listAttachments(@PathVariable Long id) {
+        return ResponseEntity.ok(attachmentService.listAttachments(id));
+    }
+
+    /**
+     * GET /api/records/{id}/attachments/{attachmentId}
+     * Allows: Anyone who may view the record. Supports Range requests (resumable
+     * downloads, seeking in large scans); the content hash is the ETag.
+     */
+    @GetMapping("/{id}/attachments/{attachmentId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
+    public void downloadAttachment(@PathVariable Long id, @PathVariable Long attachmentId,
+        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        RecordAttachmentService.Download download = attachmentService.openAttachment(id, attachmentId);
+        RecordAttachmentDto attachment = download.getAttachment();
+        FileDownloads.send(request, response, download.getFile(), attachment.getContentType(),
+            attachment.getFileName(), "\"" + attachment.getSha256() + "\"");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.hms.controller;
+
+import com.example.hms.dto.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Keeps list endpoints returning a plain JSON array; the keyset cursor for the
+ * next page travels in the X-Next-Cursor response header (absent on the last page).
+ */
+final class PageHeaders {
+
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private PageHeaders() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
+    }
+}
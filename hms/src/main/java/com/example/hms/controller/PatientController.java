@@ -0,0 +1,47 @@
+package com.example.hms.controller;
+
+import com.example.hms.dto.CursorPage;
+import com.example.hms.dto.TimelineEntryDto;
+import com.example.hms.service.PatientTimelineService;
+import com.example.hms.service.VersionCounters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/patients")
+public class PatientController {
+
+    @Autowired
+    private PatientTimelineService timelineService;
+
+    @Autowired
+    private VersionCounters versionCounters;
+
+    /**
+     * GET /api/patients/{id}/timeline
+     * A patient's appointments and their medical records as one stream, newest first,
+     * replacing separate /api/appointments/my and /api/records/my calls. The cursor for
+     * the next (older) page is returned in the X-Next-Cursor header.
+     * Answers 304 Not Modified while nothing in the caller's scope has changed.
+     */
+    @GetMapping("/{id}/timeline")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR', 'PATIENT')")
+    public ResponseEntity<List<TimelineEntryDto>> getTimeline(@PathVariable Long id,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        WebRequest webRequest) {
+        if (ETags.notModified(webRequest, versionCounters.currentUserTag(), "patient" + id)) {
+            return null;
+        }
+        CursorPage<TimelineEntryDto> page = timelineService.getTimeline(id, cursor, limit);
+        return PageHeaders.ok(page);
+    }
+}
@@ -2,9 +2,13 @@ package com.example.hms.dto;
 
 import com.example.hms.model.AppointmentStatus;
 import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor // Field order is used by the JPQL constructor projection in AppointmentRepository
 public class AppointmentDto {
     private Long id;
     private Long patientId;
@@ -16,4 +20,5 @@ public class AppointmentDto {
     private String reason;
     private boolean hasRecord;
     private String displayTime;
+    private Long changeSeq;
 }
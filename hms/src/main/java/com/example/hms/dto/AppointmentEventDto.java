@@ -0,0 +1,25 @@
+package com.example.hms.dto;
+
+import com.example.hms.model.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Small delta pushed over /api/appointments/stream; clients patch their local list
+ * by appointmentId instead of re-fetching it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentEventDto {
+    private String type; // BOOKED, STATUS_CHANGED, RECORD_CREATED
+    private Long appointmentId;
+    private Long doctorId;
+    private Long patientId;
+    private LocalDateTime appointmentTime;
+    private AppointmentStatus status;
+    private boolean hasRecord;
+}
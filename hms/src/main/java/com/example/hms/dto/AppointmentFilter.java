@@ -0,0 +1,35 @@
+package com.example.hms.dto;
+
+import com.example.hms.model.AppointmentStatus;
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Query parameters accepted by GET /api/appointments/my. Every non-null field becomes
+ * a SQL predicate; the service overrides doctorId/patientId with the caller's own
+ * profile for DOCTOR and PATIENT roles.
+ */
+@Data
+public class AppointmentFilter {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    private AppointmentStatus status;
+    private Long doctorId;
+    private Long patientId;
+    private String specialization;
+
+    // Order of (appointmentTime, id); ASC by default
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    // Keyset paging
+    private String cursor;
+    private Integer limit;
+}
@@ -0,0 +1,33 @@
+package com.example.hms.dto;
+
+import com.example.hms.model.AppointmentStatus;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * List row of an appointment: AppointmentDto without the TEXT reason column, which is
+ * only loaded by the detail endpoint GET /api/appointments/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor // Field order is used by the constructor projections in AppointmentRepository(Impl)
+public class AppointmentSummaryDto {
+    private Long id;
+    private Long patientId;
+    private String patientName;
+    private Long doctorId;
+    private String doctorName;
+    private LocalDateTime appointmentTime;
+    private AppointmentStatus status;
+    private boolean hasRecord;
+    private String displayTime;
+    private Long changeSeq;
+
+    public static AppointmentSummaryDto from(AppointmentDto dto) {
+        return new AppointmentSummaryDto(dto.getId(), dto.getPatientId(), dto.getPatientName(), dto.getDoctorId(),
+                dto.getDoctorName(), dto.getAppointmentTime(), dto.getStatus(), dto.isHasRecord(),
+                dto.getDisplayTime(), dto.getChangeSeq());
+    }
+}
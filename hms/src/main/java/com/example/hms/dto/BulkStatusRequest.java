@@ -0,0 +1,20 @@
+package com.example.hms.dto;
+
+import com.example.hms.model.AppointmentStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStatusRequest {
+
+    @NotEmpty(message = "At least one appointment ID is required")
+    @Size(max = 500, message = "At most 500 appointments per request")
+    private List<Long> appointmentIds;
+
+    @NotNull(message = "Target status is required")
+    private AppointmentStatus status;
+}
@@ -0,0 +1,19 @@
+package com.example.hms.dto;
+
+import com.example.hms.model.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk status update. skippedIds are appointments that do not exist, belong
+ * to another doctor, are cancelled, or already had the target status.
+ */
+@Data
+@AllArgsConstructor
+public class BulkStatusResult {
+    private AppointmentStatus status;
+    private List<Long> updatedIds;
+    private List<Long> skippedIds;
+}
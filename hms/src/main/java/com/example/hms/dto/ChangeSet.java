@@ -0,0 +1,32 @@
+package com.example.hms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Rows changed since a client's last sync, oldest change first. Clients upsert the
+ * items by id and pass nextSince on their next call; while hasMore is true they should
+ * call again straight away.
+ */
+@Data
+@AllArgsConstructor
+public class ChangeSet<T> {
+    private List<T> items;
+    private long nextSince;
+    private boolean hasMore;
+
+    /**
+     * Builds a change set from rows fetched with limit + 1 from the range (since, upTo].
+     * When everything fitted, the client can jump straight to upTo.
+     */
+    public static <T> ChangeSet<T> of(List<T> rows, int limit, long since, long upTo, ToLongFunction<T> seqOf) {
+        if (rows.size() <= limit) {
+            return new ChangeSet<>(rows, Math.max(since, upTo), false);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new ChangeSet<>(items, seqOf.applyAsLong(items.get(limit - 1)), true);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.hms.dto;
+
+import com.example.hms.utils.PageCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One keyset-paginated slice of a list. nextCursor is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Builds a page from rows fetched with limit + 1: the extra row only signals
+     * that another page exists and is not returned.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> positionOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, positionOf.apply(items.get(limit - 1)).encode());
+    }
+}
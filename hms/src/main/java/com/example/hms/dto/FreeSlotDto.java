@@ -0,0 +1,17 @@
+package com.example.hms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeSlotDto {
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private LocalDateTime appointmentTime;
+}
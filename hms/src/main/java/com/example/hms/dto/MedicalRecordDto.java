@@ -2,9 +2,13 @@
 package com.example.hms.dto;
 
 import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor // Field order is used by the JPQL constructor projection in MedicalRecordRepository
 public class MedicalRecordDto {
     private Long id;
     private Long patientId;
@@ -14,4 +18,5 @@ public class MedicalRecordDto {
     private LocalDateTime recordedAt;
     private String consultationNotes;
     private String diagnosis;
+    private Long changeSeq;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.hms.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * List row of a medical record: MedicalRecordDto without the TEXT consultationNotes
+ * column, which is only loaded by the detail endpoint GET /api/records/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor // Field order is used by the JPQL constructor projection in MedicalRecordRepository
+public class MedicalRecordSummaryDto {
+    private Long id;
+    private Long patientId;
+    private String patientName;
+    private Long doctorId;
+    private String doctorName;
+    private LocalDateTime recordedAt;
+    private String diagnosis;
+    private Long changeSeq;
+}
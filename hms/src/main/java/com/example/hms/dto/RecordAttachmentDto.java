@@ -0,0 +1,19 @@
+package com.example.hms.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor // Field order is used by the JPQL constructor projection in RecordAttachmentRepository
+public class RecordAttachmentDto {
+    private Long id;
+    private Long recordId;
+    private String fileName;
+    private String contentType;
+    private long sizeBytes;
+    private String sha256;
+    private LocalDateTime uploadedAt;
+}
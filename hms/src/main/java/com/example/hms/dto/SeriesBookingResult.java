@@ -0,0 +1,23 @@
+package com.example.hms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compact outcome of a series booking; full rows are available through /api/appointments/my.
+ */
+@Data
+@AllArgsConstructor
+public class SeriesBookingResult {
+    private Long doctorId;
+    private Long patientId;
+    private int booked;
+    private LocalDateTime firstAppointment;
+    private LocalDateTime lastAppointment;
+    private List<Long> appointmentIds;
+    // Occurrences left out because the doctor was already booked
+    private List<LocalDateTime> conflicts;
+}
@@ -0,0 +1,45 @@
+package com.example.hms.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Weekly recurrence: every intervalWeeks weeks, on each of daysOfWeek, at the time of
+ * firstAppointment, until occurrences appointments have been generated.
+ * Example thrice-weekly dialysis: daysOfWeek = [MONDAY, WEDNESDAY, FRIDAY], intervalWeeks = 1.
+ */
+@Data
+public class SeriesRequest {
+
+    // Ignored for patients, who always book for themselves
+    private Long patientId;
+
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotNull(message = "Date and time of the first appointment is required")
+    private LocalDateTime firstAppointment;
+
+    // Defaults to the weekday of firstAppointment
+    private List<DayOfWeek> daysOfWeek;
+
+    @Min(value = 1, message = "Interval must be at least one week")
+    @Max(value = 12, message = "Interval can be at most 12 weeks")
+    private int intervalWeeks = 1;
+
+    @NotNull(message = "Number of occurrences is required")
+    @Min(value = 1, message = "At least one occurrence is required")
+    @Max(value = 100, message = "At most 100 occurrences per series")
+    private Integer occurrences;
+
+    private String reason;
+
+    // false: reject the whole series if any occurrence conflicts; true: book the free ones
+    private boolean skipConflicts;
+}
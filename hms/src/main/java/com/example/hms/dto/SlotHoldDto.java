@@ -0,0 +1,16 @@
+package com.example.hms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class SlotHoldDto {
+    private String holdId;
+    private Long doctorId;
+    private LocalDateTime appointmentTime;
+    // Book before this time; afterwards the slot is open to everyone again
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,16 @@
+package com.example.hms.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class SlotHoldRequest {
+
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotNull(message = "Appointment date and time is required")
+    private LocalDateTime appointmentTime;
+}
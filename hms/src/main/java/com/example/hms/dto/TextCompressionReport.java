@@ -0,0 +1,38 @@
+package com.example.hms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress and outcome of the latest recompression run: storage saved against the CPU
+ * time spent compressing, plus the per-row cost of decompressing on read.
+ */
+@Data
+@AllArgsConstructor
+public class TextCompressionReport {
+    // IDLE, RUNNING, DONE or FAILED
+    private String state;
+    // Whether new writes are stored compressed (hms.app.textCompression.enabled)
+    private boolean writesCompressed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private List<ColumnStats> columns;
+
+    @Data
+    @AllArgsConstructor
+    public static class ColumnStats {
+        private String column;
+        private long rowsScanned;
+        private long rowsCompressed;
+        // UTF-8 size of the compressed rows before and after
+        private long bytesBefore;
+        private long bytesAfter;
+        private long bytesSaved;
+        private long compressMillis;
+        private double decompressMicrosPerRow;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.hms.dto;
+
+import com.example.hms.model.AppointmentStatus;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One visit on a patient's timeline: the appointment and, once the visit is documented,
+ * its medical record (record fields are null before that). Free-text reason and notes
+ * are left to the detail endpoints.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor // Field order is used by the JPQL constructor projection in AppointmentRepository
+public class TimelineEntryDto {
+    private Long appointmentId;
+    private LocalDateTime appointmentTime;
+    private String displayTime;
+    private AppointmentStatus status;
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private Long recordId;
+    private LocalDateTime recordedAt;
+    private String diagnosis;
+}
@@ -0,0 +1,28 @@
+package com.example.hms.event;
+
+import com.example.hms.dto.AppointmentDto;
+
+/**
+ * Published by AppointmentService and MedicalRecordService after an appointment is
+ * written. Carries the appointment as it looks after the change, so listeners can
+ * patch their own views without re-reading the database.
+ */
+public class AppointmentChangedEvent {
+
+    public enum Type {
+        BOOKED,
+        STATUS_CHANGED,
+        RECORD_CREATED
+    }
+
+    private final Type type;
+    private final AppointmentDto appointment;
+
+    public AppointmentChangedEvent(Type type, AppointmentDto appointment) {
+        this.type = type;
+        this.appointment = appointment;
+    }
+
+    public Type getType() { return type; }
+    public AppointmentDto getAppointment() { return appointment; }
+}
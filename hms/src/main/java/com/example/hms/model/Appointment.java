@@ -6,9 +6,27 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    // Doctor schedule / today view: doctor_id = ? AND appointment_time range, ordered by time
+    @Index(name = "idx_appointment_doctor_time", columnList = "doctor_id, appointment_time"),
+    // Patient history: patient_id = ? ordered by / bounded on time
+    @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time"),
+    // Status filters and status sweeps over a time window
+    @Index(name = "idx_appointment_status_time", columnList = "status, appointment_time"),
+    // Admin listing and date-range filter without a doctor/patient scope
+    @Index(name = "idx_appointment_time", columnList = "appointment_time"),
+    // Delta sync: change_seq > ? within a doctor/patient scope, or globally for admins
+    @Index(name = "idx_appointment_doctor_seq", columnList = "doctor_id, change_seq"),
+    @Index(name = "idx_appointment_patient_seq", columnList = "patient_id, change_seq"),
+    @Index(name = "idx_appointment_seq", columnList = "change_seq")
+}, uniqueConstraints = {
+    // DB-level guard against two live bookings at the same start; see activeSlot
+    @UniqueConstraint(name = "uk_appointment_doctor_active_slot", columnNames = {"doctor_id", "active_slot"})
+})
+@EntityListeners(ChangeSequenceListener.class)
 @Data
 @NoArgsConstructor
-public class Appointment {
+public class Appointment implements ChangeTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,11 +35,15 @@ public class Appointment {
     @Column(nullable = false)
     private LocalDateTime appointmentTime;
 
+    // Plain VARCHAR rather than a native MySQL ENUM, so adding a status needs no ALTER.
+    // Databases created with the old ENUM column need db/upgrade/001-appointment-status-varchar.sql
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
+    @Column(nullable = false, columnDefinition = "varchar(20)")
     private AppointmentStatus status = AppointmentStatus.SCHEDULED; // Default status
     
+    // Optionally compressed, see CompressedTextConverter
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String reason;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,4 +56,23 @@ public class Appointment {
     
     @Column(nullable = false)
     private String displayTime;
+
+    // Mirrors appointmentTime while the appointment occupies its slot and is NULL once
+    // cancelled. MySQL allows any number of NULLs in a unique index, so the unique
+    // (doctor_id, active_slot) constraint blocks two live bookings at the same start time
+    // while still letting a cancelled slot be re-booked. Overlapping slots with different
+    // starts are not caught by it; DoctorScheduleIndex checks those. Rows older than the
+    // column are filled in at startup by AppointmentService.backfillActiveSlots.
+    @Column(name = "active_slot")
+    private LocalDateTime activeSlot;
+
+    // Sequence number of the latest insert/update, see ChangeSequence
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @PrePersist
+    @PreUpdate
+    void syncActiveSlot() {
+        activeSlot = status == AppointmentStatus.CANCELLED ? null : appointmentTime;
+    }
 }
\ No newline at end of file
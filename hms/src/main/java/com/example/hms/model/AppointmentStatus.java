@@ -3,5 +3,6 @@ package com.example.hms.model;
 public enum AppointmentStatus {
     SCHEDULED,
     COMPLETED,
-    CANCELLED
+    CANCELLED,
+    NO_SHOW // Set by AppointmentBulkService's sweeper when a SCHEDULED appointment is long past
 }
\ No newline at end of file
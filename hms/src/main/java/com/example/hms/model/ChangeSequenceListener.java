@@ -0,0 +1,21 @@
+package com.example.hms.model;
+
+import com.example.hms.service.ChangeSequence;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Stamps a new change_seq on every insert and every dirty update.
+ * Instantiated by Hibernate through Spring, so ChangeSequence is injected.
+ */
+public class ChangeSequenceListener {
+
+    @Autowired private ChangeSequence changeSequence;
+
+    @PrePersist
+    @PreUpdate
+    void stamp(Object entity) {
+        ((ChangeTracked) entity).setChangeSeq(changeSequence.next());
+    }
+}
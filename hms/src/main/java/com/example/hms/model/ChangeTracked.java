@@ -0,0 +1,8 @@
+package com.example.hms.model;
+
+/**
+ * Entity whose writes are stamped with a ChangeSequence number for delta sync.
+ */
+public interface ChangeTracked {
+    void setChangeSeq(Long changeSeq);
+}
@@ -0,0 +1,29 @@
+package com.example.hms.model;
+
+import com.example.hms.utils.TextCompression;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Stores long free text (consultation notes, appointment reasons) in the compressed
+ * format of TextCompression. Writing compressed is opt-in via
+ * hms.app.textCompression.enabled; reading always decodes, so rows written before or
+ * after switching the flag read the same. Instantiated by Hibernate through Spring.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+
+    @Value("${hms.app.textCompression.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public String convertToDatabaseColumn(String text) {
+        return TextCompression.encode(text, enabled);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        return TextCompression.decode(stored);
+    }
+}
@@ -6,6 +6,10 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+    // Specialization filter in appointment search; user_id is covered by its unique constraint
+    @Index(name = "idx_doctor_specialization", columnList = "specialization")
+})
 @Data
 @NoArgsConstructor
 public class Doctor {
@@ -7,9 +7,23 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    // Doctor's authored records, keyset-paged by (recorded_at, id)
+    @Index(name = "idx_record_doctor_recorded", columnList = "doctor_id, recorded_at"),
+    // Patient history, keyset-paged by (recorded_at, id)
+    @Index(name = "idx_record_patient_recorded", columnList = "patient_id, recorded_at"),
+    // Admin listing
+    @Index(name = "idx_record_recorded", columnList = "recorded_at"),
+    // Delta sync: change_seq > ? within a doctor/patient scope, or globally for admins
+    @Index(name = "idx_record_doctor_seq", columnList = "doctor_id, change_seq"),
+    @Index(name = "idx_record_patient_seq", columnList = "patient_id, change_seq"),
+    @Index(name = "idx_record_seq", columnList = "change_seq")
+    // appointment_id is already covered by its unique constraint (existsByAppointmentId)
+})
+@EntityListeners(ChangeSequenceListener.class)
 @Data
 @NoArgsConstructor
-public class MedicalRecord {
+public class MedicalRecord implements ChangeTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -18,11 +32,17 @@ public class MedicalRecord {
     @Column(nullable = false)
     private LocalDateTime recordedAt = LocalDateTime.now();
     
+    // Optionally compressed, see CompressedTextConverter
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String consultationNotes;
     
     @Column(nullable = false)
     private String diagnosis;
+
+    // Sequence number of the latest insert/update, see ChangeSequence
+    @Column(name = "change_seq")
+    private Long changeSeq;
     
     // --- Relationships ---
     
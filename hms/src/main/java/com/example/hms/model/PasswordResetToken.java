@@ -7,6 +7,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    // findByUser on OTP request; token lookup is covered by its unique constraint
+    @Index(name = "idx_reset_token_user", columnList = "user_id")
+})
 @Data
 @NoArgsConstructor
 public class PasswordResetToken {
@@ -0,0 +1,50 @@
+package com.example.hms.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A file (lab report, imaging, scan) attached to a medical record. Only metadata lives
+ * in MySQL; the bytes are stored once per distinct content by AttachmentStore, under
+ * their SHA-256.
+ */
+@Entity
+@Table(indexes = {
+    // Attachments of one record, in upload order
+    @Index(name = "idx_attachment_record", columnList = "record_id, id"),
+    // Reference check before deleting a blob
+    @Index(name = "idx_attachment_sha256", columnList = "sha256")
+})
+@Data
+@NoArgsConstructor
+public class RecordAttachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "record_id", nullable = false)
+    private MedicalRecord record;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    // Hex SHA-256 of the content, which is also its storage key
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private LocalDateTime uploadedAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private Long uploadedBy; // users.id
+}
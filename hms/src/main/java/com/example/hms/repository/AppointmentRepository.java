@@ -1,47 +1,149 @@
 package com.example.hms.repository;
 
+import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.dto.TimelineEntryDto;
 import com.example.hms.model.Appointment;
 import com.example.hms.model.AppointmentStatus;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+/**
+ * List/filter queries (role scope, date range, status, doctor, specialization, patient,
+ * sorting and result cap) go through {@link AppointmentRepositoryCustom#search}.
+ */
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
 
-    // --- Default Finders (Used when no date filter is applied on UI) ---
+    /**
+     * Builds AppointmentDto rows in one statement: doctor and patient names come from
+     * inner joins and hasRecord from a left join to medical_record, so loading an
+     * appointment view costs one query instead of up to 3 lazy loads.
+     */
+    String DTO_SELECT = "SELECT new com.example.hms.dto.AppointmentDto("
+            + "a.id, p.id, p.name, d.id, d.name, a.appointmentTime, a.status, a.reason, "
+            + "CASE WHEN mr.id IS NULL THEN false ELSE true END, a.displayTime, a.changeSeq) "
+            + "FROM Appointment a JOIN a.doctor d JOIN a.patient p "
+            + "LEFT JOIN MedicalRecord mr ON mr.appointment = a ";
 
-    // 1. Retrieve all for a specific doctor
-    List<Appointment> findByDoctorId(Long doctorId);
+    /**
+     * Same joins as DTO_SELECT without the TEXT reason column, for list endpoints.
+     */
+    String SUMMARY_SELECT = "SELECT new com.example.hms.dto.AppointmentSummaryDto("
+            + "a.id, p.id, p.name, d.id, d.name, a.appointmentTime, a.status, "
+            + "CASE WHEN mr.id IS NULL THEN false ELSE true END, a.displayTime, a.changeSeq) "
+            + "FROM Appointment a JOIN a.doctor d JOIN a.patient p "
+            + "LEFT JOIN MedicalRecord mr ON mr.appointment = a ";
 
-    // 2. Retrieve all for a specific patient
-    List<Appointment> findByPatientId(Long patientId);
+    // --- Projection Finders ---
 
+    @Query(DTO_SELECT + "WHERE a.id = :id")
+    Optional<AppointmentDto> findDtoById(@Param("id") Long id);
+
+    @Query(DTO_SELECT + "WHERE a.id IN :ids ORDER BY a.appointmentTime, a.id")
+    List<AppointmentDto> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Detail view with authorization in the same statement: returned only to an admin,
+     * the appointment's doctor or its patient. Unknown and foreign IDs look the same (empty).
+     */
+    @Query(DTO_SELECT
+            + "WHERE a.id = :id "
+            + "AND (:admin = true OR d.id = :doctorId OR p.id = :patientId)")
+    Optional<AppointmentDto> findAccessibleDtoById(@Param("id") Long id, @Param("doctorId") Long doctorId,
+        @Param("patientId") Long patientId, @Param("admin") boolean admin);
+
+    /**
+     * Delta sync: appointments changed in (since, upTo], oldest change first, scoped by
+     * doctor and/or patient when given. Callers pass a Pageable of limit + 1 rows.
+     */
+    @Query(SUMMARY_SELECT
+            + "WHERE a.changeSeq > :since AND a.changeSeq <= :upTo "
+            + "AND (:doctorId IS NULL OR d.id = :doctorId) "
+            + "AND (:patientId IS NULL OR p.id = :patientId) "
+            + "ORDER BY a.changeSeq")
+    List<AppointmentSummaryDto> findSummaryChanges(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId,
+        @Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    /**
+     * Highest change_seq up to upTo, scoped like findSummaryChanges; one index dive on the
+     * *_seq indexes. Null when the scope has no appointments.
+     */
+    @Query("SELECT MAX(a.changeSeq) FROM Appointment a "
+            + "WHERE a.changeSeq <= :upTo "
+            + "AND (:doctorId IS NULL OR a.doctor.id = :doctorId) "
+            + "AND (:patientId IS NULL OR a.patient.id = :patientId)")
+    Long findMaxChangeSeq(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId,
+        @Param("upTo") long upTo);
+
+    // --- Status Writes ---
+
+    /**
+     * Marks a documented appointment COMPLETED unless it has been cancelled meanwhile.
+     * active_slot is left as it is, so a released slot is never taken back. Returns the
+     * number of rows updated (0 or 1); runs in the caller's transaction.
+     */
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = com.example.hms.model.AppointmentStatus.COMPLETED, "
+            + "a.changeSeq = :changeSeq "
+            + "WHERE a.id = :id AND a.status <> com.example.hms.model.AppointmentStatus.CANCELLED")
+    int markCompleted(@Param("id") Long id, @Param("changeSeq") long changeSeq);
+
+    // --- Patient Timeline ---
+
+    /**
+     * A patient's appointments joined with their medical records, newest first, as one
+     * keyset page on (appointmentTime, id) descending; served by the (patient_id,
+     * appointment_time) index. doctorId restricts the page to that doctor's visits.
+     * Callers pass a Pageable of limit + 1 rows.
+     */
+    @Query("SELECT new com.example.hms.dto.TimelineEntryDto("
+            + "a.id, a.appointmentTime, a.displayTime, a.status, d.id, d.name, d.specialization, "
+            + "mr.id, mr.recordedAt, mr.diagnosis) "
+            + "FROM Appointment a JOIN a.doctor d "
+            + "LEFT JOIN MedicalRecord mr ON mr.appointment = a "
+            + "WHERE a.patient.id = :patientId "
+            + "AND (:doctorId IS NULL OR d.id = :doctorId) "
+            + "AND (:beforeTime IS NULL OR a.appointmentTime < :beforeTime "
+            + "     OR (a.appointmentTime = :beforeTime AND a.id < :beforeId)) "
+            + "ORDER BY a.appointmentTime DESC, a.id DESC")
+    List<TimelineEntryDto> findTimelinePage(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId,
+        @Param("beforeTime") LocalDateTime beforeTime, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // --- Booked Slot Finders (DoctorScheduleIndex) ---
+
+    interface BookedSlot {
+        Long getId();
+        LocalDateTime getAppointmentTime();
+    }
+
+    // Every non-cancelled appointment of a doctor starting at or after 'from'
+    @Query("SELECT a.id AS id, a.appointmentTime AS appointmentTime FROM Appointment a "
+            + "WHERE a.doctor.id = :doctorId AND a.appointmentTime >= :from "
+            + "AND a.status <> com.example.hms.model.AppointmentStatus.CANCELLED")
+    List<BookedSlot> findBookedSlots(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from);
+
+    // Non-cancelled appointments of a doctor starting strictly inside (from, to)
+    @Query("SELECT COUNT(a) FROM Appointment a "
+            + "WHERE a.doctor.id = :doctorId AND a.appointmentTime > :from AND a.appointmentTime < :to "
+            + "AND a.status <> com.example.hms.model.AppointmentStatus.CANCELLED")
+    long countBookedBetween(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to);
 
     // --- Status/ID Specific Finder (Used in MedicalRecordService for status auto-update) ---
 
-    // 3. Find by Patient, Doctor, and specific Status
+    // Find by Patient, Doctor, and specific Status
     Optional<Appointment> findByPatientIdAndDoctorIdAndStatus(
         Long patientId, 
         Long doctorId, 
         AppointmentStatus status
     );
-
-
-    // --- Filtered Finders (Used when date filter is applied on UI) ---
-
-    // 4. DOCTOR: Filtered by ID and Date Range
-    // NOTE: Changed parameter name from 'id' to 'doctorId' for clarity
-    List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime startDateTime,
-        LocalDateTime endDateTime);
-
-    // 5. PATIENT: Filtered by ID and Date Range
-    // NOTE: This method was duplicated and incorrectly named. Correct name used here.
-    List<Appointment> findByPatientIdAndAppointmentTimeBetween(Long patientId, LocalDateTime startDateTime,
-        LocalDateTime endDateTime);
-
-    // 6. ADMIN: Filtered by Date Range (Global Filter)
-    List<Appointment> findByAppointmentTimeBetween(LocalDateTime startDateTime, LocalDateTime endDateTime);
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.example.hms.repository;
+
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.dto.AppointmentFilter;
+import com.example.hms.utils.PageCursor;
+
+import java.util.List;
+
+/**
+ * Criteria-based appointment search, implemented in AppointmentRepositoryImpl.
+ */
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Runs one SQL statement with every filter pushed into the WHERE clause, ordered by
+     * (appointmentTime, id) in the filter's direction and capped at maxResults rows.
+     * Rows are summaries: the TEXT reason column is never selected.
+     *
+     * @param after keyset position to continue from, or null for the first page
+     */
+    List<AppointmentSummaryDto> search(AppointmentFilter filter, PageCursor after, int maxResults);
+}
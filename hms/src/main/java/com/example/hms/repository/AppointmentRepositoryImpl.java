@@ -0,0 +1,95 @@
+package com.example.hms.repository;
+
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.dto.AppointmentFilter;
+import com.example.hms.model.Appointment;
+import com.example.hms.model.Doctor;
+import com.example.hms.model.MedicalRecord;
+import com.example.hms.model.Patient;
+import com.example.hms.utils.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentSummaryDto> search(AppointmentFilter filter, PageCursor after, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AppointmentSummaryDto> query = cb.createQuery(AppointmentSummaryDto.class);
+
+        Root<Appointment> appointment = query.from(Appointment.class);
+        Join<Appointment, Doctor> doctor = appointment.join("doctor");
+        Join<Appointment, Patient> patient = appointment.join("patient");
+        Path<LocalDateTime> time = appointment.get("appointmentTime");
+        Path<Long> id = appointment.get("id");
+
+        // hasRecord: EXISTS on medical_record.appointment_id (unique, so an index lookup)
+        Subquery<Long> record = query.subquery(Long.class);
+        Root<MedicalRecord> recordRoot = record.from(MedicalRecord.class);
+        record.select(recordRoot.get("id"))
+              .where(cb.equal(recordRoot.get("appointment").get("id"), id));
+
+        // Summary projection: the TEXT reason column is left out of list pages
+        query.select(cb.construct(AppointmentSummaryDto.class,
+                id, patient.get("id"), patient.get("name"), doctor.get("id"), doctor.get("name"),
+                time, appointment.get("status"),
+                cb.<Boolean>selectCase().when(cb.exists(record), true).otherwise(false),
+                appointment.get("displayTime"), appointment.get("changeSeq")));
+
+        // --- Filters ---
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getDoctorId() != null) {
+            predicates.add(cb.equal(doctor.get("id"), filter.getDoctorId()));
+        }
+        if (filter.getPatientId() != null) {
+            predicates.add(cb.equal(patient.get("id"), filter.getPatientId()));
+        }
+        if (filter.getSpecialization() != null && !filter.getSpecialization().isBlank()) {
+            predicates.add(cb.equal(doctor.get("specialization"), filter.getSpecialization()));
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(appointment.get("status"), filter.getStatus()));
+        }
+        if (filter.getStartDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(time, filter.getStartDate().atStartOfDay()));
+        }
+        if (filter.getEndDate() != null) {
+            // Half-open upper bound so the whole end day is included
+            predicates.add(cb.lessThan(time, filter.getEndDate().plusDays(1).atStartOfDay()));
+        }
+
+        // --- Keyset position and ordering ---
+        boolean descending = filter.getDirection() == Sort.Direction.DESC;
+        if (after != null) {
+            predicates.add(descending
+                    ? cb.or(cb.lessThan(time, after.getTime()),
+                            cb.and(cb.equal(time, after.getTime()), cb.lessThan(id, after.getId())))
+                    : cb.or(cb.greaterThan(time, after.getTime()),
+                            cb.and(cb.equal(time, after.getTime()), cb.greaterThan(id, after.getId()))));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(descending
+                ? List.of(cb.desc(time), cb.desc(id))
+                : List.of(cb.asc(time), cb.asc(id)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+}
@@ -2,9 +2,22 @@ package com.example.hms.repository;
 
 import com.example.hms.model.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     
     Optional<Doctor> findByUserId(Long userId);
+
+    List<Doctor> findBySpecialization(String specialization);
+
+    // Resolves only the profile ID, without loading the Doctor row or its User
+    @Query("SELECT d.id FROM Doctor d WHERE d.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // Together with count(), a version of the doctor directory (primary key only)
+    @Query("SELECT MAX(d.id) FROM Doctor d")
+    Long findMaxId();
 }
\ No newline at end of file
@@ -1,14 +1,109 @@
 // src/main/java/com/example/hms/repository/MedicalRecordRepository.java
 package com.example.hms.repository;
 
+import com.example.hms.dto.MedicalRecordDto;
+import com.example.hms.dto.MedicalRecordSummaryDto;
 import com.example.hms.model.MedicalRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
 
+    /**
+     * Builds MedicalRecordDto rows with doctor and patient names joined in, so a
+     * list page is one statement.
+     */
+    String DTO_SELECT = "SELECT new com.example.hms.dto.MedicalRecordDto("
+            + "r.id, p.id, p.name, d.id, d.name, r.recordedAt, r.consultationNotes, r.diagnosis, r.changeSeq) "
+            + "FROM MedicalRecord r JOIN r.doctor d JOIN r.patient p ";
+
+    /**
+     * Same joins as DTO_SELECT without the TEXT consultationNotes column, for list endpoints.
+     */
+    String SUMMARY_SELECT = "SELECT new com.example.hms.dto.MedicalRecordSummaryDto("
+            + "r.id, p.id, p.name, d.id, d.name, r.recordedAt, r.diagnosis, r.changeSeq) "
+            + "FROM MedicalRecord r JOIN r.doctor d JOIN r.patient p ";
+
+    /**
+     * Keyset page ordered by (recordedAt, id), scoped by doctor and/or patient when
+     * given. Callers pass a Pageable of limit + 1 rows.
+     */
+    @Query(SUMMARY_SELECT
+            + "WHERE (:doctorId IS NULL OR d.id = :doctorId) "
+            + "AND (:patientId IS NULL OR p.id = :patientId) "
+            + "AND (:afterTime IS NULL OR r.recordedAt > :afterTime "
+            + "     OR (r.recordedAt = :afterTime AND r.id > :afterId)) "
+            + "ORDER BY r.recordedAt, r.id")
+    List<MedicalRecordSummaryDto> findSummaryPage(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId,
+        @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Fetch and authorization in one statement: the record is returned only to an admin,
+     * its authoring doctor or its patient. Unknown and foreign IDs look the same (empty).
+     */
+    @Query(DTO_SELECT
+            + "WHERE r.id = :id "
+            + "AND (:admin = true OR d.id = :doctorId OR p.id = :patientId)")
+    Optional<MedicalRecordDto> findAccessibleDtoById(@Param("id") Long id, @Param("doctorId") Long doctorId,
+        @Param("patientId") Long patientId, @Param("admin") boolean admin);
+
+    /**
+     * The authorization check of findAccessibleDtoById on its own, without loading the row.
+     */
+    @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END FROM MedicalRecord r "
+            + "WHERE r.id = :id "
+            + "AND (:admin = true OR r.doctor.id = :doctorId OR r.patient.id = :patientId)")
+    boolean isAccessible(@Param("id") Long id, @Param("doctorId") Long doctorId,
+        @Param("patientId") Long patientId, @Param("admin") boolean admin);
+
+    // --- Search Index (RecordSearchIndex) ---
+
+    interface IndexedRecord {
+        Long getId();
+        Long getDoctorId();
+        Long getPatientId();
+        String getDiagnosis();
+        String getConsultationNotes();
+    }
+
+    // Keyset batch for rebuilding the search index, in id order
+    @Query("SELECT r.id AS id, r.doctor.id AS doctorId, r.patient.id AS patientId, "
+            + "r.diagnosis AS diagnosis, r.consultationNotes AS consultationNotes "
+            + "FROM MedicalRecord r WHERE r.id > :afterId ORDER BY r.id")
+    List<IndexedRecord> findIndexBatch(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE r.id IN :ids")
+    List<MedicalRecordSummaryDto> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delta sync: records changed in (since, upTo], oldest change first, scoped by
+     * doctor and/or patient when given. Callers pass a Pageable of limit + 1 rows.
+     */
+    @Query(SUMMARY_SELECT
+            + "WHERE r.changeSeq > :since AND r.changeSeq <= :upTo "
+            + "AND (:doctorId IS NULL OR d.id = :doctorId) "
+            + "AND (:patientId IS NULL OR p.id = :patientId) "
+            + "ORDER BY r.changeSeq")
+    List<MedicalRecordSummaryDto> findSummaryChanges(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId,
+        @Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    /**
+     * Highest change_seq up to upTo, scoped like findSummaryChanges; one index dive on the
+     * *_seq indexes. Null when the scope has no records.
+     */
+    @Query("SELECT MAX(r.changeSeq) FROM MedicalRecord r "
+            + "WHERE r.changeSeq <= :upTo "
+            + "AND (:doctorId IS NULL OR r.doctor.id = :doctorId) "
+            + "AND (:patientId IS NULL OR r.patient.id = :patientId)")
+    Long findMaxChangeSeq(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId,
+        @Param("upTo") long upTo);
+
     /**
      * Finds all records created/authored by a specific Doctor.
      * Used by ROLE_DOCTOR for listing their authored records.
@@ -2,8 +2,14 @@ package com.example.hms.repository;
 
 import com.example.hms.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByUserId(Long userId);
+
+    // Resolves only the profile ID, without loading the Patient row or its User
+    @Query("SELECT p.id FROM Patient p WHERE p.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
 }
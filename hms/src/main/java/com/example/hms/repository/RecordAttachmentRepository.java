@@ -0,0 +1,26 @@
+package com.example.hms.repository;
+
+import com.example.hms.dto.RecordAttachmentDto;
+import com.example.hms.model.RecordAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+import java.util.Optional;
+
+public interface RecordAttachmentRepository extends JpaRepository<RecordAttachment, Long> {
+
+    String DTO_SELECT = "SELECT new com.example.hms.dto.RecordAttachmentDto("
+            + "a.id, a.record.id, a.fileName, a.contentType, a.sizeBytes, a.sha256, a.uploadedAt) "
+            + "FROM RecordAttachment a ";
+
+    @Query(DTO_SELECT + "WHERE a.record.id = :recordId ORDER BY a.id")
+    List<RecordAttachmentDto> findDtosByRecordId(@Param("recordId") Long recordId);
+
+    // The record id is part of the lookup, so an attachment is only reachable through its own record
+    @Query(DTO_SELECT + "WHERE a.id = :id AND a.record.id = :recordId")
+    Optional<RecordAttachmentDto> findDtoByIdAndRecordId(@Param("id") Long id, @Param("recordId") Long recordId);
+
+    // Whether stored content is still referenced; decides if a blob may be deleted
+    boolean existsBySha256(String sha256);
+}
@@ -5,7 +5,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,15 +21,23 @@ public class JwtAuthTokenFilter extends OncePerRequestFilter {
  @Autowired private JwtUtils jwtUtils;
  @Autowired private UserDetailsServiceImpl userDetailsService;
 
+ // When true, the principal is rebuilt from the signed token claims instead of
+ // re-reading the users table on every request. Role changes and deleted accounts
+ // then only take effect once the token expires (hms.app.jwtExpirationMs).
+ @Value("${hms.app.jwtStatelessAuth:true}")
+ private boolean statelessAuth;
+
  @Override
  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
          throws ServletException, IOException {
      try {
          String jwt = parseJwt(request);
-         if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-             String username = jwtUtils.getUserNameFromJwtToken(jwt);
-             
-             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+         // Single verification: signature, expiry and claim parsing happen once per token
+         Claims claims = jwt != null ? jwtUtils.verifyJwtToken(jwt) : null;
+         if (claims != null) {
+             UserDetails userDetails = statelessAuth
+                     ? buildFromClaims(claims)
+                     : userDetailsService.loadUserByUsername(claims.getSubject());
              
              UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                      userDetails, null, userDetails.getAuthorities());
@@ -41,6 +51,14 @@ public class JwtAuthTokenFilter extends OncePerRequestFilter {
      filterChain.doFilter(request, response);
  }
 
+ private UserDetails buildFromClaims(Claims claims) {
+     return UserDetailsImpl.build(
+             claims.get("id", Long.class),
+             claims.getSubject(),
+             claims.get("role", String.class),
+             claims.get("profileId", Long.class));
+ }
+
  private String parseJwt(HttpServletRequest request) {
      String headerAuth = request.getHeader("Authorization");
      if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
@@ -1,26 +1,52 @@
 package com.example.hms.security;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import com.example.hms.utils.BoundedCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtils {
-    
+
     @Value("${hms.app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${hms.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${hms.app.jwtCacheSize:10000}")
+    private int jwtCacheSize;
+
+    // Built once at startup; both are immutable and safe to share between request threads
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    // Recently verified tokens, keyed by SHA-256 digest so raw tokens are never held as keys
+    private BoundedCache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = new BoundedCache<>(jwtCacheSize, 0);
+    }
+
     // Generates a JWT token upon successful authentication
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
@@ -29,30 +55,62 @@ public class JwtUtils {
                 .setSubject((userPrincipal.getUsername()))
                 .claim("id", userPrincipal.getId())
                 .claim("role", userPrincipal.getRole())
+                .claim("profileId", userPrincipal.getProfileId())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256) 
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    /**
+     * Verifies signature and expiry exactly once and returns the claims, or null when
+     * the token is invalid. Repeat calls with the same token are answered from the
+     * cache until the token's own exp is reached.
+     */
+    public Claims verifyJwtToken(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            if (expiration != null) {
+                verifiedTokens.put(digest, claims, expiration.getTime());
+            }
+            return claims;
+        } catch (Exception e) {
+            // In a production app, you would log the specific JWT exception here (ExpiredJwtException, etc.)
+            return null;
+        }
+    }
+
+    // Extracts all claims (subject, id, role) from the token
+    public Claims getClaimsFromJwtToken(String token) {
+        Claims claims = verifyJwtToken(token);
+        if (claims == null) {
+            throw new IllegalArgumentException("Invalid JWT token.");
+        }
+        return claims;
     }
 
     // Extracts username from the token
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return getClaimsFromJwtToken(token).getSubject();
     }
 
     // Validates the token's integrity and expiration
     public boolean validateJwtToken(String authToken) {
+        return verifyJwtToken(authToken) != null;
+    }
+
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
-        } catch (Exception e) {
-            // In a production app, you would log the specific JWT exception here (ExpiredJwtException, etc.)
-            return false;
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -13,22 +13,38 @@ public class UserDetailsImpl implements UserDetails {
     private String username;
     private String password;
     private GrantedAuthority authority;
+    // Doctor.id or Patient.id linked to this user; null for admins or when not yet resolved
+    private Long profileId;
 
-    private UserDetailsImpl(Long id, String username, String password, GrantedAuthority authority) {
+    private UserDetailsImpl(Long id, String username, String password, GrantedAuthority authority, Long profileId) {
         this.id = id;
         this.username = username;
         this.password = password;
         this.authority = authority;
+        this.profileId = profileId;
     }
 
     public static UserDetailsImpl build(User user) {
+        return build(user, null);
+    }
+
+    public static UserDetailsImpl build(User user, Long profileId) {
         SimpleGrantedAuthority authority = new SimpleGrantedAuthority(user.getRole().name());
-        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getPassword(), authority);
+        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getPassword(), authority, profileId);
+    }
+
+    /**
+     * Builds a principal straight from verified JWT claims (stateless mode).
+     * No password is carried because the token itself is the credential.
+     */
+    public static UserDetailsImpl build(Long id, String username, String role, Long profileId) {
+        return new UserDetailsImpl(id, username, null, new SimpleGrantedAuthority(role), profileId);
     }
     
     // Custom Getters for access in AuthController
     public Long getId() { return id; }
     public String getRole() { return authority.getAuthority(); }
+    public Long getProfileId() { return profileId; }
 
     // Required UserDetails methods (Getters are the most important for now)
     @Override public Collection<? extends GrantedAuthority> getAuthorities() { return List.of(authority); }
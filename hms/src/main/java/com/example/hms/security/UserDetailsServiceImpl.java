@@ -3,6 +3,7 @@ package com.example.hms.security;
 
 import com.example.hms.model.User;
 import com.example.hms.repository.UserRepository;
+import com.example.hms.service.ProfileResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,11 +16,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
  @Autowired
  UserRepository userRepository;
 
+ @Autowired
+ ProfileResolver profileResolver;
+
  @Override
  public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
      User user = userRepository.findByUsername(username)
          .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
-     return UserDetailsImpl.build(user);
+     Long profileId = profileResolver.resolveProfileId(user.getId(), user.getRole()).orElse(null);
+     return UserDetailsImpl.build(user, profileId);
  }
 }
@@ -1,6 +1,7 @@
 package com.example.hms.security;
 
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,6 +57,8 @@ public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
       .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
       .authorizeHttpRequests(auth -> auth
           .requestMatchers("/api/auth/**").permitAll() // Must be accessible
+          // Async re-dispatches (SSE completion/timeout) belong to an already authorized request
+          .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
           .anyRequest().authenticated()
       );
 
@@ -0,0 +1,191 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.BulkStatusRequest;
+import com.example.hms.dto.BulkStatusResult;
+import com.example.hms.enums.RoleName;
+import com.example.hms.event.AppointmentChangedEvent;
+import com.example.hms.model.AppointmentStatus;
+import com.example.hms.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Set-based appointment status changes: the bulk PATCH used for end-of-day clean-up and
+ * the scheduled no-show sweeper. Both write with plain JDBC in a single transaction, so
+ * the entity callbacks (active_slot, change_seq) are applied explicitly in the SQL.
+ */
+@Service
+public class AppointmentBulkService {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private AppointmentService appointmentService;
+    @Autowired private SecurityHelper securityHelper;
+    @Autowired private DoctorScheduleIndex scheduleIndex;
+    @Autowired private ChangeSequence changeSequence;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    // SCHEDULED appointments this long past their start time are marked NO_SHOW
+    @Value("${hms.app.noShowGraceMinutes:120}")
+    private int noShowGraceMinutes;
+
+    // Upper bound of appointments one sweeper run marks; below the SSE per-subscriber queue limit
+    @Value("${hms.app.noShowSweepBatch:50}")
+    private int noShowSweepBatch;
+
+    // --- Bulk PATCH ---
+
+    /**
+     * Applies one status to many appointments in one transaction. Doctors can only touch
+     * their own appointments; the ownership check is part of the locking SELECT, so foreign
+     * IDs are simply reported as skipped. Cancelled appointments are skipped too, because
+     * re-activating one needs the per-slot conflict check of the single-item endpoint.
+     */
+    public BulkStatusResult updateStatuses(BulkStatusRequest request) {
+        AppointmentStatus target = request.getStatus();
+        if (target == AppointmentStatus.SCHEDULED) {
+            throw new IllegalArgumentException("Bulk updates cannot re-schedule appointments; update them one by one.");
+        }
+
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorId = null;
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Doctor profile missing or not linked to user."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            throw new AccessDeniedException("Only Doctors and Admins can update appointment status.");
+        }
+
+        Set<Long> requested = new LinkedHashSet<>(request.getAppointmentIds());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("ids", requested)
+            .addValue("target", target.name())
+            .addValue("doctorId", doctorId);
+
+        List<ChangedRow> changed = transactionTemplate.execute(tx -> {
+            // 1. Lock the rows this caller may change
+            List<ChangedRow> rows = namedJdbcTemplate.query(
+                "SELECT id, doctor_id, appointment_time FROM appointment "
+                    + "WHERE id IN (:ids) AND status <> 'CANCELLED' AND status <> :target "
+                    + "AND (:doctorId IS NULL OR doctor_id = :doctorId) FOR UPDATE",
+                params,
+                (rs, i) -> new ChangedRow(rs.getLong("id"), rs.getLong("doctor_id"),
+                    rs.getTimestamp("appointment_time").toLocalDateTime()));
+            if (rows.isEmpty()) {
+                return rows;
+            }
+
+            // 2. One batched UPDATE per chunk; a cancelled appointment releases its slot
+            long firstSeq = changeSequence.reserve(rows.size());
+            List<Object[]> batch = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ChangedRow row = rows.get(i);
+                Timestamp activeSlot = target == AppointmentStatus.CANCELLED ? null : Timestamp.valueOf(row.appointmentTime);
+                batch.add(new Object[] { target.name(), activeSlot, firstSeq + i, row.id });
+            }
+            for (int from = 0; from < batch.size(); from += BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("UPDATE appointment SET status = ?, active_slot = ?, change_seq = ? WHERE id = ?",
+                    batch.subList(from, Math.min(from + BATCH_SIZE, batch.size())));
+            }
+            return rows;
+        });
+
+        // 3. After commit: schedule index (under the same doctor lock as every other
+        // index write) and listeners
+        List<Long> updatedIds = new ArrayList<>(changed.size());
+        for (ChangedRow row : changed) {
+            updatedIds.add(row.id);
+            if (target == AppointmentStatus.CANCELLED) {
+                Lock lock = appointmentService.doctorLock(row.doctorId);
+                lock.lock();
+                try {
+                    scheduleIndex.remove(row.doctorId, row.id, row.appointmentTime);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        if (!updatedIds.isEmpty()) {
+            publishStatusChanged(appointmentRepository.findDtosByIds(updatedIds));
+        }
+
+        requested.removeAll(updatedIds);
+        return new BulkStatusResult(target, updatedIds, new ArrayList<>(requested));
+    }
+
+    // --- No-show Sweeper ---
+
+    /**
+     * Marks SCHEDULED appointments that started more than the grace period ago as NO_SHOW,
+     * oldest first, at most noShowSweepBatch per run. Rows are locked, then updated in one
+     * JDBC batch with one change_seq each from a block of exactly that size. The bound
+     * keeps a backlog (e.g. the first run after deploy) from loading every historical row
+     * and flooding live-update subscribers; later runs continue where this one stopped.
+     */
+    @Scheduled(cron = "${hms.app.noShowSweepCron:0 * * * * *}")
+    public void sweepNoShows() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(noShowGraceMinutes);
+
+        List<Long> sweptIds = transactionTemplate.execute(tx -> {
+            List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM appointment WHERE status = 'SCHEDULED' AND appointment_time < ? "
+                    + "ORDER BY appointment_time, id LIMIT ? FOR UPDATE",
+                Long.class, cutoff, noShowSweepBatch);
+            if (ids.isEmpty()) {
+                return ids;
+            }
+            long firstSeq = changeSequence.reserve(ids.size());
+            List<Object[]> batch = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                batch.add(new Object[] { firstSeq + i, ids.get(i) });
+            }
+            jdbcTemplate.batchUpdate("UPDATE appointment SET status = 'NO_SHOW', change_seq = ? WHERE id = ?", batch);
+            return ids;
+        });
+        if (sweptIds.isEmpty()) {
+            return;
+        }
+
+        // NO_SHOW keeps its slot (active_slot stays set), so the schedule index is unchanged
+        publishStatusChanged(appointmentRepository.findDtosByIds(sweptIds));
+    }
+
+    private void publishStatusChanged(List<AppointmentDto> appointments) {
+        for (AppointmentDto appointment : appointments) {
+            eventPublisher.publishEvent(new AppointmentChangedEvent(AppointmentChangedEvent.Type.STATUS_CHANGED, appointment));
+        }
+    }
+
+    private static final class ChangedRow {
+        private final long id;
+        private final long doctorId;
+        private final LocalDateTime appointmentTime;
+
+        private ChangedRow(long id, long doctorId, LocalDateTime appointmentTime) {
+            this.id = id;
+            this.doctorId = doctorId;
+            this.appointmentTime = appointmentTime;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentEventDto;
+import com.example.hms.enums.RoleName;
+import com.example.hms.event.AppointmentChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes appointment deltas to open dashboards over Server-Sent Events.
+ *
+ * Idle connections hold no thread: SseEmitter runs on servlet async I/O, and events are
+ * written by short-lived virtual-thread drain tasks, one at a time per subscriber.
+ * A subscriber whose queue exceeds MAX_PENDING events (a stalled client) is closed;
+ * the browser reconnects and re-syncs with a normal list request.
+ */
+@Component
+public class AppointmentEventBroadcaster {
+
+    private static final int MAX_PENDING = 64;
+    private static final String ADMIN_SCOPE = "admin";
+
+    @Autowired private SecurityHelper securityHelper;
+
+    @Value("${hms.app.sse.timeoutMs:1800000}")
+    private long emitterTimeoutMs;
+
+    // Subscribers by scope: "admin", "doctor:<id>" or "patient:<id>"
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Registers the logged-in user for the events they are allowed to see.
+     */
+    public SseEmitter subscribe() {
+        RoleName role = securityHelper.getCurrentUserRole();
+        String scope;
+        if (role == RoleName.ROLE_ADMIN) {
+            scope = ADMIN_SCOPE;
+        } else if (role == RoleName.ROLE_DOCTOR) {
+            scope = doctorScope(securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new IllegalStateException("Doctor profile missing.")));
+        } else {
+            scope = patientScope(securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new IllegalStateException("Patient profile missing.")));
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(scope, emitter);
+        subscribers.computeIfAbsent(scope, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(error -> unregister(subscriber));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        AppointmentDto appointment = event.getAppointment();
+        AppointmentEventDto delta = new AppointmentEventDto(event.getType().name(), appointment.getId(),
+                appointment.getDoctorId(), appointment.getPatientId(), appointment.getAppointmentTime(),
+                appointment.getStatus(), appointment.isHasRecord());
+        // Built once: the builder is stateful and not thread-safe, the built frames are neither
+        Set<ResponseBodyEmitter.DataWithMediaType> message =
+                Collections.unmodifiableSet(SseEmitter.event().name("appointment").data(delta).build());
+
+        publish(ADMIN_SCOPE, message);
+        publish(doctorScope(appointment.getDoctorId()), message);
+        publish(patientScope(appointment.getPatientId()), message);
+    }
+
+    // Keeps proxies from closing idle connections and detects dead clients
+    @Scheduled(fixedRateString = "${hms.app.sse.heartbeatMs:15000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping =
+                Collections.unmodifiableSet(SseEmitter.event().comment("heartbeat").build());
+        for (Set<Subscriber> scoped : subscribers.values()) {
+            scoped.forEach(subscriber -> enqueue(subscriber, ping));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void publish(String scope, Set<ResponseBodyEmitter.DataWithMediaType> message) {
+        Set<Subscriber> scoped = subscribers.get(scope);
+        if (scoped != null) {
+            scoped.forEach(subscriber -> enqueue(subscriber, message));
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> message) {
+        if (subscriber.pending.incrementAndGet() > MAX_PENDING) {
+            unregister(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        subscriber.queue.add(message);
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> message;
+            while ((message = subscriber.queue.poll()) != null) {
+                subscriber.pending.decrementAndGet();
+                subscriber.emitter.send(message);
+            }
+        } catch (Exception e) {
+            // Client went away; the container reports it through onError/onCompletion too
+            unregister(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A message may have arrived between the last poll and releasing the flag
+        if (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void unregister(Subscriber subscriber) {
+        Set<Subscriber> scoped = subscribers.get(subscriber.scope);
+        if (scoped != null) {
+            scoped.remove(subscriber);
+        }
+    }
+
+    private static String doctorScope(Long doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    private static String patientScope(Long patientId) {
+        return "patient:" + patientId;
+    }
+
+    private static final class Subscriber {
+        private final String scope;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String scope, SseEmitter emitter) {
+            this.scope = scope;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -1,26 +1,55 @@
 package com.example.hms.service;
 
 import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentFilter;
 import com.example.hms.dto.AppointmentRequest;
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.dto.ChangeSet;
+import com.example.hms.dto.CursorPage;
+import com.example.hms.dto.SeriesBookingResult;
+import com.example.hms.dto.SeriesRequest;
+import com.example.hms.dto.SlotHoldDto;
+import com.example.hms.dto.SlotHoldRequest;
 import com.example.hms.enums.RoleName;
+import com.example.hms.event.AppointmentChangedEvent;
 import com.example.hms.model.Appointment;
 import com.example.hms.model.AppointmentStatus;
 import com.example.hms.model.Doctor;
 import com.example.hms.model.Patient;
 import com.example.hms.repository.AppointmentRepository;
 import com.example.hms.repository.DoctorRepository;
-import com.example.hms.repository.MedicalRecordRepository;
 import com.example.hms.repository.PatientRepository;
+import com.example.hms.utils.PageCursor;
+import com.example.hms.utils.StripedLocks;
+import com.example.hms.utils.TextCompression;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class AppointmentService {
@@ -29,10 +58,67 @@ public class AppointmentService {
     @Autowired private DoctorRepository doctorRepository;
     @Autowired private PatientRepository patientRepository;
     @Autowired private SecurityHelper securityHelper; 
-    @Autowired private MedicalRecordRepository medicalRecordRepository;
+    @Autowired private DoctorScheduleIndex scheduleIndex;
+    @Autowired private SlotHoldRegistry slotHolds;
+    @Autowired private DoctorDayScheduleCache todayScheduleCache;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private ChangeSequence changeSequence;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    // displayTime of series occurrences, which have no client-formatted string
+    private static final DateTimeFormatter SERIES_DISPLAY_TIME =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy, hh:mm a", Locale.ENGLISH);
+
+    // Serializes the check-then-insert on one doctor's schedule; other doctors book in parallel.
+    // Locks are per JVM. The application must run as a single instance (hard constraint, see
+    // ChangeSequence); the unique active_slot constraint only backs up identical start times.
+    private final StripedLocks doctorLocks = new StripedLocks(64);
+
+    // The lock guarding one doctor's schedule, for writers outside this class (bulk updates)
+    Lock doctorLock(Long doctorId) {
+        return doctorLocks.forKey(doctorId);
+    }
+
+    @Value("${hms.app.pageSize:50}")
+    private int defaultPageSize;
+
+    @Value("${hms.app.maxPageSize:200}")
+    private int maxPageSize;
+
+    // The series INSERT bypasses CompressedTextConverter, so it encodes the reason itself
+    @Value("${hms.app.textCompression.enabled:false}")
+    private boolean compressText;
+
+    // --- active_slot Backfill ---
+    /**
+     * Fills active_slot of live appointments written before the column existed, so the
+     * unique (doctor_id, active_slot) constraint covers them too. Where an old double
+     * booking already has two live rows at one start, only the first keeps its slot and the
+     * others stay NULL for manual clean-up, instead of the UPDATE failing on the constraint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillActiveSlots() {
+        List<Long> conflicting = jdbcTemplate.queryForList(
+                "SELECT a.id FROM appointment a WHERE a.status <> 'CANCELLED' AND a.active_slot IS NULL "
+                + "AND EXISTS (SELECT 1 FROM appointment b WHERE b.doctor_id = a.doctor_id "
+                + "AND b.appointment_time = a.appointment_time AND b.status <> 'CANCELLED' AND b.id <> a.id "
+                + "AND (b.active_slot IS NOT NULL OR b.id < a.id))", Long.class);
+        String backfill = "UPDATE appointment SET active_slot = appointment_time "
+                + "WHERE status <> 'CANCELLED' AND active_slot IS NULL";
+        if (conflicting.isEmpty()) {
+            jdbcTemplate.update(backfill);
+        } else {
+            namedJdbcTemplate.update(backfill + " AND id NOT IN (:conflicting)",
+                    new MapSqlParameterSource("conflicting", conflicting));
+        }
+    }
 
     // --- Utility Method for Mapping ---
-    private AppointmentDto mapToDto(Appointment appointment) {
+    // Only used for freshly saved appointments whose doctor/patient are already loaded.
+    // List and lookup paths use the AppointmentRepository DTO projections instead.
+    private AppointmentDto mapToDto(Appointment appointment, boolean hasRecord) {
         AppointmentDto dto = new AppointmentDto();
         dto.setId(appointment.getId());
         dto.setReason(appointment.getReason());
@@ -46,27 +132,23 @@ public class AppointmentService {
         dto.setDisplayTime(appointment.getDisplayTime());
         dto.setAppointmentTime(appointment.getAppointmentTime());
         
-        // Record Check
-        boolean recordExists = medicalRecordRepository.existsByAppointmentId(appointment.getId()); 
-        dto.setHasRecord(recordExists);
+        dto.setHasRecord(hasRecord);
+        dto.setChangeSeq(appointment.getChangeSeq());
         
         return dto;
     }
 
     // --- Appointment Booking Logic ---
     public AppointmentDto bookAppointment(AppointmentRequest request) {
-    	Long currentUserId = securityHelper.getCurrentUserId();
         RoleName role = securityHelper.getCurrentUserRole();
         
-        // 1. Determine Patient Profile
-        Patient patient;
-        if (role == RoleName.ROLE_PATIENT) {
-            patient = patientRepository.findByUserId(currentUserId) 
-                .orElseThrow(() -> new EntityNotFoundException("Patient profile not found for logged-in user."));
-        } else {
-            patient = patientRepository.findById(request.getPatientId())
-                .orElseThrow(() -> new EntityNotFoundException("Patient not found with ID: " + request.getPatientId()));
-        }
+        // 1. Determine Patient Profile (patients always book for themselves)
+        Long patientId = role == RoleName.ROLE_PATIENT
+                ? securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Patient profile not found for logged-in user."))
+                : request.getPatientId();
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new EntityNotFoundException("Patient not found with ID: " + patientId));
         
         // 2. Find Doctor
         Doctor doctor = doctorRepository.findById(request.getDoctorId())
@@ -81,73 +163,252 @@ public class AppointmentService {
         appointment.setStatus(AppointmentStatus.SCHEDULED);
         appointment.setDisplayTime(request.getDisplayTimeString());
         
-        Appointment savedAppointment = appointmentRepository.save(appointment);
-        return mapToDto(savedAppointment);
+        // 4. Check and insert under the doctor's lock (save commits before the lock is released)
+        Long userId = securityHelper.getCurrentUserId();
+        Appointment savedAppointment;
+        Lock lock = doctorLocks.forKey(doctor.getId());
+        lock.lock();
+        try {
+            // Reject overlaps from the in-memory schedule before touching the database.
+            // A slot held by this user passes: nobody else could book it while held.
+            if (!scheduleIndex.isFree(doctor.getId(), request.getAppointmentTime())) {
+                throw new IllegalArgumentException("Doctor already has an appointment overlapping " + request.getAppointmentTime());
+            }
+            if (slotHolds.isHeldByOther(doctor.getId(), request.getAppointmentTime(), userId)) {
+                throw new IllegalArgumentException("Slot is currently held by another user: " + request.getAppointmentTime());
+            }
+            savedAppointment = saveSlot(appointment);
+            scheduleIndex.add(doctor.getId(), savedAppointment.getId(), savedAppointment.getAppointmentTime());
+            slotHolds.consume(userId, doctor.getId(), savedAppointment.getAppointmentTime());
+        } finally {
+            lock.unlock();
+        }
+        AppointmentDto booked = mapToDto(savedAppointment, false); // A new appointment cannot have a record yet
+        eventPublisher.publishEvent(new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, booked));
+        return booked;
     }
     
+    // --- Slot Holds (two-phase booking) ---
+    /**
+     * Reserves a free slot for the logged-in user for a short TTL while they complete the
+     * booking form. Booking the same slot before expiry is then guaranteed to pass the
+     * conflict check; a user's newer hold replaces their older one.
+     */
+    public SlotHoldDto placeHold(SlotHoldRequest request) {
+        Long doctorId = request.getDoctorId();
+        LocalDateTime start = request.getAppointmentTime();
+        if (!start.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Only future slots can be held.");
+        }
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new EntityNotFoundException("Doctor not found with ID: " + doctorId);
+        }
+
+        Long userId = securityHelper.getCurrentUserId();
+        SlotHoldRegistry.Hold hold;
+        Lock lock = doctorLocks.forKey(doctorId);
+        lock.lock();
+        try {
+            if (!scheduleIndex.isFree(doctorId, start) || slotHolds.isHeldByOther(doctorId, start, userId)) {
+                throw new IllegalArgumentException("Slot is no longer available: " + start);
+            }
+            hold = slotHolds.place(userId, doctorId, start);
+        } finally {
+            lock.unlock();
+        }
+        return new SlotHoldDto(hold.getId(), doctorId, start,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.getExpiresAt()), ZoneId.systemDefault()));
+    }
+
+    public void releaseHold(String holdId) {
+        if (!slotHolds.release(holdId, securityHelper.getCurrentUserId())) {
+            throw new EntityNotFoundException("Hold not found: " + holdId);
+        }
+    }
+
+    // --- Series Booking Logic ---
+    /**
+     * Books a weekly recurring series with one patient/doctor lookup, one conflict check
+     * over all occurrences and one batched INSERT transaction, all under the doctor's lock.
+     * Without skipConflicts a single conflicting occurrence rejects the whole series.
+     */
+    public SeriesBookingResult bookSeries(SeriesRequest request) {
+        RoleName role = securityHelper.getCurrentUserRole();
+
+        // 1. Resolve the patient (patients always book for themselves) and verify both profiles
+        Long patientId = role == RoleName.ROLE_PATIENT
+                ? securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Patient profile not found for logged-in user."))
+                : request.getPatientId();
+        if (patientId == null || !patientRepository.existsById(patientId)) {
+            throw new EntityNotFoundException("Patient not found with ID: " + patientId);
+        }
+        Long doctorId = request.getDoctorId();
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new EntityNotFoundException("Doctor not found with ID: " + doctorId);
+        }
+
+        // 2. Expand the recurrence rule
+        List<LocalDateTime> occurrences = expandSeries(request);
+
+        List<LocalDateTime> toBook = new ArrayList<>(occurrences.size());
+        List<LocalDateTime> conflicts = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(occurrences.size());
+        Long userId = securityHelper.getCurrentUserId();
+        Lock lock = doctorLocks.forKey(doctorId);
+        lock.lock();
+        try {
+            // 3. Check every occurrence against the in-memory schedule and other users' holds at once
+            for (LocalDateTime start : occurrences) {
+                if (scheduleIndex.isFree(doctorId, start) && !slotHolds.isHeldByOther(doctorId, start, userId)) {
+                    toBook.add(start);
+                } else {
+                    conflicts.add(start);
+                }
+            }
+            if (!conflicts.isEmpty() && !request.isSkipConflicts()) {
+                throw new IllegalArgumentException("Doctor already has appointments overlapping " + conflicts);
+            }
+
+            // 4. Insert all occurrences in one transaction (entity callbacks applied by hand)
+            if (!toBook.isEmpty()) {
+                ids.addAll(insertSeries(doctorId, patientId, request.getReason(), toBook));
+                for (int i = 0; i < toBook.size(); i++) {
+                    scheduleIndex.add(doctorId, ids.get(i), toBook.get(i));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // 5. After commit: listeners
+        if (!ids.isEmpty()) {
+            for (AppointmentDto booked : appointmentRepository.findDtosByIds(ids)) {
+                eventPublisher.publishEvent(new AppointmentChangedEvent(AppointmentChangedEvent.Type.BOOKED, booked));
+            }
+        }
+
+        return new SeriesBookingResult(doctorId, patientId, ids.size(),
+                toBook.isEmpty() ? null : toBook.get(0),
+                toBook.isEmpty() ? null : toBook.get(toBook.size() - 1),
+                ids, conflicts);
+    }
+
+    // Occurrence start times in ascending order
+    private List<LocalDateTime> expandSeries(SeriesRequest request) {
+        LocalDateTime first = request.getFirstAppointment();
+        Set<DayOfWeek> days = request.getDaysOfWeek() == null || request.getDaysOfWeek().isEmpty()
+                ? EnumSet.of(first.getDayOfWeek())
+                : EnumSet.copyOf(request.getDaysOfWeek());
+
+        List<LocalDateTime> occurrences = new ArrayList<>(request.getOccurrences());
+        LocalDate weekStart = first.toLocalDate().with(DayOfWeek.MONDAY);
+        while (occurrences.size() < request.getOccurrences()) {
+            for (DayOfWeek day : days) { // EnumSet iterates Monday to Sunday
+                LocalDate date = weekStart.with(day);
+                if (date.isBefore(first.toLocalDate())) {
+                    continue;
+                }
+                occurrences.add(date.atTime(first.toLocalTime()));
+                if (occurrences.size() == request.getOccurrences()) {
+                    break;
+                }
+            }
+            weekStart = weekStart.plusWeeks(request.getIntervalWeeks());
+        }
+        return occurrences;
+    }
+
+    // Batched INSERT of the series, returning the new IDs in the order of starts
+    private List<Long> insertSeries(Long doctorId, Long patientId, String reason, List<LocalDateTime> starts) {
+        try {
+            return transactionTemplate.execute(tx -> {
+                long firstSeq = changeSequence.reserve(starts.size());
+                String storedReason = TextCompression.encode(reason, compressText);
+                List<Object[]> rows = new ArrayList<>(starts.size());
+                List<Timestamp> slots = new ArrayList<>(starts.size());
+                for (int i = 0; i < starts.size(); i++) {
+                    Timestamp start = Timestamp.valueOf(starts.get(i));
+                    slots.add(start);
+                    rows.add(new Object[] { start, AppointmentStatus.SCHEDULED.name(), storedReason, doctorId, patientId,
+                            SERIES_DISPLAY_TIME.format(starts.get(i)), start, firstSeq + i });
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO appointment (appointment_time, status, reason, doctor_id, "
+                        + "patient_id, display_time, active_slot, change_seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+                // (doctor_id, active_slot) is unique, so it identifies each new row
+                List<Long> ids = new ArrayList<>(starts.size());
+                namedJdbcTemplate.query("SELECT id FROM appointment WHERE doctor_id = :doctorId "
+                        + "AND active_slot IN (:slots) ORDER BY active_slot",
+                        new MapSqlParameterSource("doctorId", doctorId).addValue("slots", slots),
+                        rs -> {
+                            ids.add(rs.getLong("id"));
+                        });
+                return ids;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Doctor already has an appointment overlapping the series.");
+        }
+    }
+
     // --- Appointment Viewing/Filtering Logic (FINAL INTEGRATED VERSION) ---
     /**
-     * Retrieves appointments accessible by the logged-in user.
-     * If all date params are null, it fetches ALL. 
-     * If the user is a DOCTOR, it fetches TODAY's schedule by default when no filters are sent.
+     * Retrieves one keyset page of appointments accessible by the logged-in user.
+     * All filters in AppointmentFilter are applied in SQL for every role; the role only
+     * decides the scope (doctors see their own schedule, patients their own bookings).
+     * Pass the previous page's nextCursor to continue.
      */
-    public List<AppointmentDto> getAppointmentsForCurrentUser(LocalDate startDate, LocalDate endDate) {
+    public CursorPage<AppointmentSummaryDto> getAppointmentsForCurrentUser(AppointmentFilter filter) {
         RoleName role = securityHelper.getCurrentUserRole();
-        Long currentUserId = securityHelper.getCurrentUserId();
         
-        // Determine if the request is a simple unfettered fetch (no date filtering)
-        boolean isFilteringByDate = (startDate != null || endDate != null);
+        // Admin: no scope, any filter combination is allowed
+        if (role == RoleName.ROLE_DOCTOR) {
+            filter.setDoctorId(securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Doctor profile missing.")));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            filter.setPatientId(securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Patient profile missing.")));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            return new CursorPage<>(List.of(), null); 
+        }
         
-        List<Appointment> appointments;
+        PageCursor after = PageCursor.decode(filter.getCursor());
+        int pageSize = PageCursor.clampLimit(filter.getLimit(), defaultPageSize, maxPageSize);
+        List<AppointmentSummaryDto> rows = appointmentRepository.search(filter, after, pageSize + 1);
         
-        if (role == RoleName.ROLE_ADMIN) {
-            if (isFilteringByDate) {
-                 LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : LocalDateTime.MIN;
-                 LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : LocalDateTime.MAX;
-                 appointments = appointmentRepository.findByAppointmentTimeBetween(startDateTime, endDateTime);
-            } else {
-                 appointments = appointmentRepository.findAll();
-            }
-        } else if (role == RoleName.ROLE_DOCTOR) {
-            Doctor doctor = doctorRepository.findByUserId(currentUserId)
+        return CursorPage.of(rows, pageSize, dto -> new PageCursor(dto.getAppointmentTime(), dto.getId()));
+    }
+    /**
+     * Delta sync: appointments of the logged-in user's scope (same scoping as
+     * getAppointmentsForCurrentUser) booked, updated or cancelled after 'since'.
+     */
+    public ChangeSet<AppointmentSummaryDto> getAppointmentChangesForCurrentUser(long since, Integer limit) {
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorId = null;
+        Long patientId = null;
+
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorId = securityHelper.getCurrentProfileId()
                     .orElseThrow(() -> new EntityNotFoundException("Doctor profile missing."));
-            
-            // Doctor Dashboard Logic: If no dates are provided, fetch TODAY's appointments by default.
-            if (!isFilteringByDate) {
-                 // Fetch TODAY's schedule (Dashboard View)
-                 
-                 appointments = appointmentRepository.findByDoctorId(
-                    doctor.getId());
-            } else {
-                 // If dates ARE provided (from the general list's filter component), use the full range
-                 LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : LocalDateTime.MIN;
-                 LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : LocalDateTime.MAX;
-                 appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
-                    doctor.getId(), startDateTime, endDateTime);
-            }
         } else if (role == RoleName.ROLE_PATIENT) {
-             Patient patient = patientRepository.findByUserId(currentUserId)
-                     .orElseThrow(() -> new EntityNotFoundException("Patient profile missing."));
-                     
-             if (isFilteringByDate) {
-         
-                 appointments = appointmentRepository.findByPatientId(
-                     patient.getId());
-             } else {
-                 // Patient List View (no filter): Fetch ALL appointments
-                 appointments = appointmentRepository.findByPatientId(patient.getId()); 
-             }
-        } else {
-            return List.of(); 
+            patientId = securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Patient profile missing."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            return new ChangeSet<>(List.of(), since, false);
         }
-        
-        return appointments.stream().map(this::mapToDto).collect(Collectors.toList());
+
+        // Read the watermark first: nothing at or below it can still commit later
+        long upTo = changeSequence.visibleUpTo();
+        int pageSize = PageCursor.clampLimit(limit, defaultPageSize, maxPageSize);
+        List<AppointmentSummaryDto> rows = appointmentRepository.findSummaryChanges(doctorId, patientId, since, upTo,
+                PageRequest.of(0, pageSize + 1));
+
+        return ChangeSet.of(rows, pageSize, since, upTo, AppointmentSummaryDto::getChangeSeq);
     }
  // src/main/java/com.example.hms.service.AppointmentService (Add this method)
 
-    public List<AppointmentDto> getTodayAppointmentsForDoctor() {
+    public List<AppointmentSummaryDto> getTodayAppointmentsForDoctor() {
         RoleName role = securityHelper.getCurrentUserRole();
-        Long currentUserId = securityHelper.getCurrentUserId();
         
         // Authorization Check: Ensure only Doctors can call this dedicated endpoint
         if (role != RoleName.ROLE_DOCTOR) {
@@ -155,45 +416,96 @@ public class AppointmentService {
         }
         
         // 1. Find the Doctor Profile linked to the user
-        Doctor doctor = doctorRepository.findByUserId(currentUserId)
+        Long doctorId = securityHelper.getCurrentProfileId()
                 .orElseThrow(() -> new EntityNotFoundException("Doctor profile missing."));
                 
         // 2. Define today's boundaries strictly
-        LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfToday = LocalDate.now().atTime(LocalTime.MAX); // Includes 23:59:59
-
-        // 3. Fetch appointments using the bounded query
-        List<Appointment> appointments = appointmentRepository
-            .findByDoctorIdAndAppointmentTimeBetween(
-                doctor.getId(), 
-                startOfToday, 
-                endOfToday
-            );
-        
-        // 4. Map and return
-        return appointments.stream().map(this::mapToDto).collect(Collectors.toList());
+        AppointmentFilter today = new AppointmentFilter();
+        today.setDoctorId(doctorId);
+        today.setStartDate(LocalDate.now());
+        today.setEndDate(LocalDate.now());
+
+        // 3. Serve from the event-maintained cache; the bounded query (one day always fits in a
+        // max-size page) only runs on a miss or after midnight
+        return todayScheduleCache.getToday(doctorId, () -> appointmentRepository.search(today, null, maxPageSize));
+    }
+    // --- Detail View ---
+    /**
+     * Full appointment including the reason text, for the logged-in user's own scope only
+     * (admins: any). The scope check is part of the fetch query.
+     */
+    public AppointmentDto getAppointmentById(Long appointmentId) {
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorId = null;
+        Long patientId = null;
+
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Doctor profile missing."));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            patientId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Patient profile missing."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            throw new AccessDeniedException("You are not authorized to view appointments.");
+        }
+
+        return appointmentRepository.findAccessibleDtoById(appointmentId, doctorId, patientId, role == RoleName.ROLE_ADMIN)
+            .orElseThrow(() -> new EntityNotFoundException("Appointment not found with ID: " + appointmentId));
     }
+
     // --- Status Update Logic ---
     public AppointmentDto updateStatus(Long appointmentId, AppointmentStatus newStatus) {
         RoleName role = securityHelper.getCurrentUserRole();
-        Long currentUserId = securityHelper.getCurrentUserId();
 
         Appointment appointment = appointmentRepository.findById(appointmentId)
             .orElseThrow(() -> new EntityNotFoundException("Appointment not found with ID: " + appointmentId));
 
         // CRITICAL SECURITY CHECK (DOCTOR ONLY)
         if (role == RoleName.ROLE_DOCTOR) {
-            Doctor treatingDoctor = doctorRepository.findByUserId(currentUserId)
+            Long treatingDoctorId = securityHelper.getCurrentProfileId()
                 .orElseThrow(() -> new AccessDeniedException("Doctor profile missing or not linked to user."));
             
-            if (!appointment.getDoctor().getId().equals(treatingDoctor.getId())) {
+            if (!appointment.getDoctor().getId().equals(treatingDoctorId)) {
                 throw new AccessDeniedException("Authorization failed: You cannot update appointments belonging to another doctor.");
             }
         }
         
-        appointment.setStatus(newStatus);
-        Appointment savedAppointment = appointmentRepository.save(appointment);
-        
-        return mapToDto(savedAppointment); 
+        // A cancelled appointment can only be re-activated if its slot is still free
+        AppointmentStatus oldStatus = appointment.getStatus();
+        Long doctorId = appointment.getDoctor().getId();
+        boolean freesSlot = oldStatus != AppointmentStatus.CANCELLED && newStatus == AppointmentStatus.CANCELLED;
+        boolean takesSlot = oldStatus == AppointmentStatus.CANCELLED && newStatus != AppointmentStatus.CANCELLED;
+        Lock lock = doctorLocks.forKey(doctorId);
+        lock.lock();
+        try {
+            if (takesSlot && (!scheduleIndex.isFree(doctorId, appointment.getAppointmentTime())
+                    || slotHolds.isHeldByOther(doctorId, appointment.getAppointmentTime(), securityHelper.getCurrentUserId()))) {
+                throw new IllegalArgumentException("Slot is no longer free for appointment ID: " + appointmentId);
+            }
+            
+            appointment.setStatus(newStatus);
+            saveSlot(appointment);
+            
+            if (freesSlot) {
+                scheduleIndex.remove(doctorId, appointmentId, appointment.getAppointmentTime());
+            } else if (takesSlot) {
+                scheduleIndex.add(doctorId, appointmentId, appointment.getAppointmentTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+        AppointmentDto updated = appointmentRepository.findDtoById(appointmentId)
+            .orElseThrow(() -> new EntityNotFoundException("Appointment not found with ID: " + appointmentId));
+        eventPublisher.publishEvent(new AppointmentChangedEvent(AppointmentChangedEvent.Type.STATUS_CHANGED, updated));
+        return updated; 
+    }
+
+    // Saves an appointment, translating the unique (doctor_id, active_slot) constraint into a booking error
+    private Appointment saveSlot(Appointment appointment) {
+        try {
+            return appointmentRepository.save(appointment);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Doctor already has an appointment at " + appointment.getAppointmentTime());
+        }
     }
-}
\ No newline at end of file
+}
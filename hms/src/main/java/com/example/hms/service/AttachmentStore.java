@@ -0,0 +1,155 @@
+package com.example.hms.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed blob storage on the local file system: each distinct content is kept
+ * once, at {dir}/ab/cd/abcd... named by its SHA-256. Identical uploads share one file.
+ *
+ * Uploads are copied to a temporary file in fixed-size chunks while being hashed, then
+ * moved into place, so a request never holds the file in heap and a reader never sees a
+ * partially written blob.
+ */
+@Component
+public class AttachmentStore {
+
+    @Value("${hms.app.attachments.dir:./data/attachments}")
+    private String directory;
+
+    @Value("${hms.app.attachments.maxBytes:52428800}")
+    private long maxBytes;
+
+    private Path root;
+    private Path incoming;
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(directory).toAbsolutePath().normalize();
+        incoming = Files.createDirectories(root.resolve("incoming"));
+    }
+
+    /**
+     * Streams content into a temporary file and returns it with its hash and size. Rejects
+     * content larger than hms.app.attachments.maxBytes. Nothing is visible in the store
+     * until commit; closing an uncommitted blob deletes the temporary file.
+     */
+    public ReceivedBlob receive(InputStream content) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(incoming, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    size += n;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Attachment exceeds the limit of " + maxBytes + " bytes.");
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            ReceivedBlob blob = new ReceivedBlob(temp, HexFormat.of().formatHex(digest.digest()), size);
+            temp = null;
+            return blob;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store attachment", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    /**
+     * Moves a received blob into place under its hash. When the content is already stored
+     * the temporary file is simply dropped. Callers serialize commit and delete per hash.
+     */
+    public void commit(ReceivedBlob blob) {
+        try {
+            Path target = path(blob.sha256);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(blob.temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                    // Same content stored concurrently, or a file system without atomic rename
+                    if (!Files.exists(target)) {
+                        Files.move(blob.temp, target);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store attachment", e);
+        } finally {
+            blob.close();
+        }
+    }
+
+    /**
+     * Removes stored content. Only for hashes no attachment row references any more.
+     */
+    public void delete(String sha256) {
+        try {
+            Files.deleteIfExists(path(sha256));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete attachment", e);
+        }
+    }
+
+    public Path path(String sha256) {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid content hash.");
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static void deleteTemp(Path temp) {
+        if (temp != null) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Left for manual clean-up of the incoming directory
+            }
+        }
+    }
+
+    public static final class ReceivedBlob implements AutoCloseable {
+        private final Path temp;
+        private final String sha256;
+        private final long size;
+
+        private ReceivedBlob(Path temp, String sha256, long size) {
+            this.temp = temp;
+            this.sha256 = sha256;
+            this.size = size;
+        }
+
+        public String getSha256() { return sha256; }
+        public long getSize() { return size; }
+
+        // No-op once the file has been moved into place
+        @Override
+        public void close() {
+            deleteTemp(temp);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.hms.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Monotonic change sequence shared by Appointment and MedicalRecord. Every insert or
+ * update stamps the row's change_seq (see ChangeSequenceListener), so clients can ask
+ * for "everything changed since N" instead of re-downloading full lists.
+ *
+ * Numbers are handed out before their transaction commits, so a higher number can become
+ * visible before a lower one. visibleUpTo() therefore stops just below the oldest number
+ * still in flight; delta queries never read past it and cannot skip a late commit.
+ *
+ * Deployment constraint: the application must run as a single instance. The counter and
+ * the in-flight set live in this JVM, seeded once from MAX(change_seq); a second instance
+ * would hand out the same numbers, and neither watermark would see the other's in-flight
+ * work, so delta-sync clients would silently miss rows. Scaling out requires allocating
+ * numbers (and tracking in-flight ones) in the database first.
+ */
+@Component
+public class ChangeSequence {
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private long last;
+    private boolean seeded;
+    // Assigned numbers whose transaction has not completed yet
+    private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureSeeded();
+    }
+
+    public long next() {
+        return reserve(1);
+    }
+
+    /**
+     * Reserves count consecutive numbers and returns the first, for set-based updates
+     * that stamp many rows in one statement. Unused numbers in the block are harmless gaps.
+     */
+    public synchronized long reserve(long count) {
+        ensureSeeded();
+        long first = last + 1;
+        last += count;
+        // Tracking the lowest number holds back the whole block until the transaction ends
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.add(first);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(first);
+                }
+            });
+        }
+        return first;
+    }
+
+    /**
+     * Highest sequence number below which every change is committed (or rolled back).
+     */
+    public synchronized long visibleUpTo() {
+        ensureSeeded();
+        return inFlight.isEmpty() ? last : inFlight.first() - 1;
+    }
+
+    // Rows written before change_seq existed get their id as sequence (unique per table),
+    // then numbering continues above the highest value in either table
+    private synchronized void ensureSeeded() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE appointment SET change_seq = id WHERE change_seq IS NULL");
+        jdbcTemplate.update("UPDATE medical_record SET change_seq = id WHERE change_seq IS NULL");
+        Long appointments = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_seq), 0) FROM appointment", Long.class);
+        Long records = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_seq), 0) FROM medical_record", Long.class);
+        last = Math.max(appointments, records);
+        seeded = true;
+    }
+}
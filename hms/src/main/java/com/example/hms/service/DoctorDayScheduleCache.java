@@ -0,0 +1,107 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.event.AppointmentChangedEvent;
+import com.example.hms.utils.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Materialised "today" schedule per doctor for the polling dashboard. Entries are
+ * patched in place from AppointmentChangedEvents (after commit), so repeat polls are
+ * answered from memory. Entries for a previous day are dropped on read and the whole
+ * cache is cleared at midnight.
+ */
+@Component
+public class DoctorDayScheduleCache {
+
+    private static final Comparator<AppointmentSummaryDto> BY_TIME =
+            Comparator.comparing(AppointmentSummaryDto::getAppointmentTime).thenComparing(AppointmentSummaryDto::getId);
+
+    @Value("${hms.app.todayCacheSize:1000}")
+    private int cacheSize;
+
+    private BoundedCache<Long, DaySchedule> schedules;
+
+    // Bumped on every change for a doctor; a load that raced with a change is not cached
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        schedules = new BoundedCache<>(cacheSize, 0);
+    }
+
+    public List<AppointmentSummaryDto> getToday(Long doctorId, Supplier<List<AppointmentSummaryDto>> loader) {
+        LocalDate today = LocalDate.now();
+        DaySchedule cached = schedules.get(doctorId);
+        if (cached != null && cached.day.equals(today)) {
+            return cached.appointments;
+        }
+
+        long generation = generationOf(doctorId).get();
+        List<AppointmentSummaryDto> loaded = List.copyOf(loader.get());
+        synchronized (this) {
+            if (generationOf(doctorId).get() == generation) {
+                schedules.put(doctorId, new DaySchedule(today, loaded));
+            }
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        AppointmentDto changed = event.getAppointment();
+        Long doctorId = changed.getDoctorId();
+        synchronized (this) {
+            generationOf(doctorId).incrementAndGet();
+            DaySchedule cached = schedules.get(doctorId);
+            if (cached == null) {
+                return;
+            }
+            if (!cached.day.equals(LocalDate.now())) {
+                schedules.invalidate(doctorId);
+                return;
+            }
+            List<AppointmentSummaryDto> patched = new ArrayList<>(cached.appointments);
+            patched.removeIf(appointment -> appointment.getId().equals(changed.getId()));
+            if (changed.getAppointmentTime().toLocalDate().equals(cached.day)) {
+                patched.add(AppointmentSummaryDto.from(changed));
+                patched.sort(BY_TIME);
+            }
+            schedules.put(doctorId, new DaySchedule(cached.day, List.copyOf(patched)));
+        }
+    }
+
+    // Midnight rollover
+    @Scheduled(cron = "0 0 0 * * *")
+    public void clear() {
+        schedules.clear();
+    }
+
+    private AtomicLong generationOf(Long doctorId) {
+        return generations.computeIfAbsent(doctorId, id -> new AtomicLong());
+    }
+
+    private static final class DaySchedule {
+        private final LocalDate day;
+        private final List<AppointmentSummaryDto> appointments;
+
+        private DaySchedule(LocalDate day, List<AppointmentSummaryDto> appointments) {
+            this.day = day;
+            this.appointments = appointments;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.hms.service;
+
+import com.example.hms.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of booked (non-cancelled) slots per doctor, used to reject
+ * double-bookings before any INSERT. Each doctor's slots live in a TreeMap keyed by
+ * start time, so "is this slot free" is a single O(log n) floor lookup.
+ *
+ * Alongside the TreeMap every doctor keeps one 96-bit occupancy bitmap per day
+ * (15-minute cells), so free-slot searches are a bit scan rather than SQL.
+ *
+ * A doctor's slots are loaded lazily on first use, from the start of that day onwards.
+ * Earlier times fall back to a count query. An hourly prune moves the covered range to
+ * the start of the current day, dropping past starts and day bitmaps, and forgets doctors
+ * with nothing left to track, so memory follows upcoming bookings rather than history.
+ * AppointmentService keeps the index in sync with every write. The unique
+ * (doctor_id, active_slot) constraint on Appointment only backs this up for bookings at
+ * the identical start time; overlapping slots with different starts are caught here alone.
+ */
+@Component
+public class DoctorScheduleIndex {
+
+    // Bitmap resolution: 96 cells of 15 minutes per day
+    static final int CELL_MINUTES = 15;
+    static final int CELLS_PER_DAY = 24 * 60 / CELL_MINUTES;
+
+    @Autowired private AppointmentRepository appointmentRepository;
+
+    @Value("${hms.app.appointmentSlotMinutes:15}")
+    private int slotMinutes;
+
+    private final Map<Long, DoctorSlots> doctors = new ConcurrentHashMap<>();
+
+    public Duration getSlotLength() {
+        return Duration.ofMinutes(slotMinutes);
+    }
+
+    /**
+     * True when [start, start + slot length) overlaps no booked appointment of the doctor.
+     */
+    public boolean isFree(Long doctorId, LocalDateTime start) {
+        Boolean free = slotsFor(doctorId).isFree(start);
+        if (free == null) {
+            Duration slot = getSlotLength();
+            return appointmentRepository.countBookedBetween(doctorId, start.minus(slot), start.plus(slot)) == 0;
+        }
+        return free;
+    }
+
+    /**
+     * Free appointment starts of one doctor on one day, on the 15-minute grid, within
+     * [opens, closes) and not before notBefore, in ascending order.
+     */
+    public List<LocalDateTime> freeStarts(Long doctorId, LocalDate day, LocalTime opens, LocalTime closes,
+            LocalDateTime notBefore) {
+        return slotsFor(doctorId).freeStarts(day, opens, closes, notBefore);
+    }
+
+    // Records a newly booked (or re-activated) appointment
+    public void add(Long doctorId, Long appointmentId, LocalDateTime start) {
+        slotsFor(doctorId).add(start, appointmentId);
+    }
+
+    // Frees the slot of a cancelled appointment
+    public void remove(Long doctorId, Long appointmentId, LocalDateTime start) {
+        slotsFor(doctorId).remove(start, appointmentId);
+    }
+
+    /**
+     * Drops everything before the start of today. Doctors left without any tracked start
+     * are forgotten and reloaded on next use.
+     */
+    @Scheduled(cron = "0 5 * * * *")
+    public void prune() {
+        LocalDateTime cutoff = LocalDate.now().atStartOfDay();
+        for (Map.Entry<Long, DoctorSlots> entry : doctors.entrySet()) {
+            if (entry.getValue().pruneBefore(cutoff)) {
+                // Bookings add under AppointmentService's doctor lock after their commit, so a
+                // concurrent add to the dropped instance is also in the database for the reload
+                doctors.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // The query runs outside computeIfAbsent so a slow load never blocks the map bin;
+    // if two threads load at once the first instance published wins
+    private DoctorSlots slotsFor(Long doctorId) {
+        DoctorSlots slots = doctors.get(doctorId);
+        if (slots != null) {
+            return slots;
+        }
+        DoctorSlots loaded = load(doctorId);
+        DoctorSlots raced = doctors.putIfAbsent(doctorId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private DoctorSlots load(Long doctorId) {
+        DoctorSlots slots = new DoctorSlots(LocalDate.now().atStartOfDay(), getSlotLength());
+        for (AppointmentRepository.BookedSlot booked : appointmentRepository.findBookedSlots(doctorId, slots.coveredFrom)) {
+            slots.add(booked.getAppointmentTime(), booked.getId());
+        }
+        return slots;
+    }
+
+    private static int cellOf(LocalTime time) {
+        return time.toSecondOfDay() / (CELL_MINUTES * 60);
+    }
+
+    // First cell starting at or after the given time
+    private static int cellAtOrAfter(LocalTime time) {
+        int cellSeconds = CELL_MINUTES * 60;
+        return (time.toSecondOfDay() + cellSeconds - 1) / cellSeconds;
+    }
+
+    /**
+     * Booked start times of one doctor. All slots have the same length, so booked
+     * intervals never overlap each other and only the closest earlier start matters.
+     */
+    private static final class DoctorSlots {
+        private LocalDateTime coveredFrom;
+        private final Duration slot;
+        private final int cellsPerSlot;
+        private final TreeMap<LocalDateTime, Long> starts = new TreeMap<>();
+        // Occupied 15-minute cells per day; days without bookings have no entry
+        private final Map<LocalDate, BitSet> days = new HashMap<>();
+
+        private DoctorSlots(LocalDateTime coveredFrom, Duration slot) {
+            this.coveredFrom = coveredFrom;
+            this.slot = slot;
+            this.cellsPerSlot = (int) ((slot.toMinutes() + CELL_MINUTES - 1) / CELL_MINUTES);
+        }
+
+        // null when start lies before the covered range and the caller must ask the database
+        synchronized Boolean isFree(LocalDateTime start) {
+            if (start.isBefore(coveredFrom)) {
+                return null;
+            }
+            // Latest booked start before the requested end; it overlaps iff it ends after our start
+            LocalDateTime previous = starts.lowerKey(start.plus(slot));
+            return previous == null || !previous.plus(slot).isAfter(start);
+        }
+
+        // Moves the covered range up to cutoff; returns true when nothing is left to track
+        synchronized boolean pruneBefore(LocalDateTime cutoff) {
+            if (cutoff.isAfter(coveredFrom)) {
+                coveredFrom = cutoff;
+                // Keep starts whose slot still reaches into the covered range
+                starts.headMap(cutoff.minus(slot), false).clear();
+                days.keySet().removeIf(day -> day.isBefore(cutoff.toLocalDate()));
+            }
+            return starts.isEmpty();
+        }
+
+        synchronized List<LocalDateTime> freeStarts(LocalDate day, LocalTime opens, LocalTime closes,
+                LocalDateTime notBefore) {
+            List<LocalDateTime> free = new ArrayList<>();
+            BitSet busy = days.get(day);
+            int first = cellAtOrAfter(opens);
+            if (notBefore.toLocalDate().equals(day)) {
+                first = Math.max(first, cellAtOrAfter(notBefore.toLocalTime()));
+            } else if (notBefore.toLocalDate().isAfter(day)) {
+                return free;
+            }
+            int lastStart = cellOf(closes) - cellsPerSlot;
+
+            int cell = first;
+            while (cell <= lastStart) {
+                int nextBusy = busy == null ? -1 : busy.nextSetBit(cell);
+                if (nextBusy == -1 || nextBusy >= cell + cellsPerSlot) {
+                    free.add(day.atStartOfDay().plusMinutes((long) cell * CELL_MINUTES));
+                    cell++;
+                } else {
+                    cell = nextBusy + 1;
+                }
+            }
+            return free;
+        }
+
+        synchronized void add(LocalDateTime start, Long appointmentId) {
+            if (starts.putIfAbsent(start, appointmentId) == null) {
+                mark(start);
+            }
+        }
+
+        synchronized void remove(LocalDateTime start, Long appointmentId) {
+            if (starts.remove(start, appointmentId)) {
+                rebuildDays(start.toLocalDate(), start.plus(slot).toLocalDate());
+            }
+        }
+
+        private void mark(LocalDateTime start) {
+            LocalDateTime end = start.plus(slot);
+            LocalDateTime cell = start.toLocalDate().atStartOfDay()
+                    .plusMinutes((long) cellOf(start.toLocalTime()) * CELL_MINUTES);
+            while (cell.isBefore(end)) {
+                days.computeIfAbsent(cell.toLocalDate(), d -> new BitSet(CELLS_PER_DAY))
+                    .set(cellOf(cell.toLocalTime()));
+                cell = cell.plusMinutes(CELL_MINUTES);
+            }
+        }
+
+        // Recomputes day bitmaps from the TreeMap; clearing bits directly could free a cell
+        // still covered by a neighbouring appointment that shares it
+        private void rebuildDays(LocalDate firstDay, LocalDate lastDay) {
+            for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                days.remove(day);
+            }
+            LocalDateTime from = firstDay.atStartOfDay().minus(slot);
+            LocalDateTime to = lastDay.plusDays(1).atStartOfDay();
+            for (LocalDateTime start : starts.subMap(from, false, to, false).keySet()) {
+                mark(start);
+            }
+        }
+    }
+}
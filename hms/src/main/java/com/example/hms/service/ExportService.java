@@ -0,0 +1,161 @@
+package com.example.hms.service;
+
+import com.example.hms.utils.TextCompression;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full-table exports as NDJSON (one JSON object per line) for reporting and the data
+ * warehouse.
+ *
+ * Rows are read from a forward-only, read-only result set and written to the response
+ * one at a time, so heap use does not grow with the table. With MySQL Connector/J a
+ * fetch size of Integer.MIN_VALUE makes the driver stream rows instead of buffering the
+ * whole result; a positive size only takes effect with useCursorFetch=true on the URL.
+ * Free text is decoded from its storage format (see TextCompression).
+ */
+@Service
+public class ExportService {
+
+    private static final String APPOINTMENTS = "SELECT a.id, a.appointment_time, a.display_time, a.status, a.reason, "
+        + "a.doctor_id, d.name AS doctor_name, a.patient_id, p.name AS patient_name, a.change_seq "
+        + "FROM appointment a JOIN doctor d ON d.id = a.doctor_id JOIN patient p ON p.id = a.patient_id";
+
+    private static final String RECORDS = "SELECT r.id, r.recorded_at, r.diagnosis, r.consultation_notes, "
+        + "r.appointment_id, r.doctor_id, d.name AS doctor_name, r.patient_id, p.name AS patient_name, r.change_seq "
+        + "FROM medical_record r JOIN doctor d ON d.id = r.doctor_id JOIN patient p ON p.id = r.patient_id";
+
+    @Autowired private DataSource dataSource;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${hms.app.export.fetchSize:-2147483648}")
+    private int fetchSize;
+
+    // Own template: the shared one must keep the driver's default (buffered) fetching
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Writes appointments with from <= appointment date < to (either bound optional),
+     * in id order.
+     */
+    public void exportAppointments(OutputStream out, LocalDate from, LocalDate to, boolean gzip) throws IOException {
+        export(out, gzip, APPOINTMENTS, "a.appointment_time", from, to, "a.id", (rs, json) -> {
+            json.writeNumberField("id", rs.getLong("id"));
+            writeTimestamp(json, "appointmentTime", rs.getTimestamp("appointment_time"));
+            json.writeStringField("displayTime", rs.getString("display_time"));
+            json.writeStringField("status", rs.getString("status"));
+            json.writeStringField("reason", TextCompression.decode(rs.getString("reason")));
+            json.writeNumberField("doctorId", rs.getLong("doctor_id"));
+            json.writeStringField("doctorName", rs.getString("doctor_name"));
+            json.writeNumberField("patientId", rs.getLong("patient_id"));
+            json.writeStringField("patientName", rs.getString("patient_name"));
+            writeLong(json, "changeSeq", rs, "change_seq");
+        });
+    }
+
+    /**
+     * Writes medical records with from <= recorded date < to (either bound optional),
+     * in id order.
+     */
+    public void exportRecords(OutputStream out, LocalDate from, LocalDate to, boolean gzip) throws IOException {
+        export(out, gzip, RECORDS, "r.recorded_at", from, to, "r.id", (rs, json) -> {
+            json.writeNumberField("id", rs.getLong("id"));
+            writeTimestamp(json, "recordedAt", rs.getTimestamp("recorded_at"));
+            json.writeStringField("diagnosis", rs.getString("diagnosis"));
+            json.writeStringField("consultationNotes", TextCompression.decode(rs.getString("consultation_notes")));
+            writeLong(json, "appointmentId", rs, "appointment_id");
+            json.writeNumberField("doctorId", rs.getLong("doctor_id"));
+            json.writeStringField("doctorName", rs.getString("doctor_name"));
+            json.writeNumberField("patientId", rs.getLong("patient_id"));
+            json.writeStringField("patientName", rs.getString("patient_name"));
+            writeLong(json, "changeSeq", rs, "change_seq");
+        });
+    }
+
+    private void export(OutputStream out, boolean gzip, String select, String timeColumn, LocalDate from, LocalDate to,
+                        String orderColumn, RowWriter rowWriter) throws IOException {
+        StringBuilder sql = new StringBuilder(select);
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(args.isEmpty() ? " WHERE " : " AND ").append(timeColumn).append(" >= ?");
+            args.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append(args.isEmpty() ? " WHERE " : " AND ").append(timeColumn).append(" < ?");
+            args.add(Timestamp.valueOf(to.atStartOfDay()));
+        }
+        sql.append(" ORDER BY ").append(orderColumn);
+
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        JsonGenerator json = objectMapper.getFactory().createGenerator(target, JsonEncoding.UTF8);
+        // The servlet container owns the response stream
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are ended explicitly; the default " " between root values would lead every line after the first
+        json.setRootValueSeparator(null);
+        try (json) {
+            streamingJdbcTemplate.query(sql.toString(), rs -> {
+                try {
+                    json.writeStartObject();
+                    rowWriter.write(rs, json);
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    // Client went away: stop at this row
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+    }
+
+    private static void writeTimestamp(JsonGenerator json, String field, Timestamp value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, value.toLocalDateTime().toString());
+        }
+    }
+
+    private static void writeLong(JsonGenerator json, String field, ResultSet rs, String column)
+            throws IOException, SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs, JsonGenerator json) throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.FreeSlotDto;
+import com.example.hms.model.Doctor;
+import com.example.hms.repository.DoctorRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Answers "next N free slots" for a doctor or a specialization from the per-day
+ * occupancy bitmaps in DoctorScheduleIndex. Besides one doctor lookup, no SQL runs
+ * for doctors whose schedule is already indexed.
+ */
+@Service
+public class FreeSlotService {
+
+    private static final int DEFAULT_COUNT = 10;
+    private static final int MAX_COUNT = 100;
+    private static final int DEFAULT_WINDOW_DAYS = 7;
+    private static final int MAX_WINDOW_DAYS = 31;
+
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private DoctorScheduleIndex scheduleIndex;
+    @Autowired private SlotHoldRegistry slotHolds;
+    @Autowired private SecurityHelper securityHelper;
+
+    // Bookable hours, e.g. 09:00 to 17:00 (HH:mm)
+    @Value("${hms.app.clinicOpens:09:00}")
+    private String clinicOpens;
+
+    @Value("${hms.app.clinicCloses:17:00}")
+    private String clinicCloses;
+
+    public List<FreeSlotDto> findFreeSlots(String specialization, Long doctorId, LocalDate from, LocalDate to,
+            Integer count) {
+        List<Doctor> doctors;
+        if (doctorId != null) {
+            doctors = List.of(doctorRepository.findById(doctorId)
+                    .orElseThrow(() -> new EntityNotFoundException("Doctor not found with ID: " + doctorId)));
+        } else if (specialization != null && !specialization.isBlank()) {
+            doctors = doctorRepository.findBySpecialization(specialization);
+        } else {
+            throw new IllegalArgumentException("Either specialization or doctorId is required.");
+        }
+
+        Long userId = securityHelper.getCurrentUserId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate firstDay = from != null && from.isAfter(now.toLocalDate()) ? from : now.toLocalDate();
+        LocalDate lastDay = to != null ? to : firstDay.plusDays(DEFAULT_WINDOW_DAYS - 1);
+        if (lastDay.isAfter(firstDay.plusDays(MAX_WINDOW_DAYS - 1))) {
+            lastDay = firstDay.plusDays(MAX_WINDOW_DAYS - 1);
+        }
+        int wanted = count == null || count <= 0 ? DEFAULT_COUNT : Math.min(count, MAX_COUNT);
+        LocalTime opens = LocalTime.parse(clinicOpens);
+        LocalTime closes = LocalTime.parse(clinicCloses);
+
+        // Day by day, merge every doctor's free cells in time order until enough are found
+        List<FreeSlotDto> result = new ArrayList<>();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay) && result.size() < wanted; day = day.plusDays(1)) {
+            List<FreeSlotDto> dayCandidates = new ArrayList<>();
+            for (Doctor doctor : doctors) {
+                for (LocalDateTime start : scheduleIndex.freeStarts(doctor.getId(), day, opens, closes, now)) {
+                    // Slots held by other users are not offered until the hold lapses
+                    if (slotHolds.isHeldByOther(doctor.getId(), start, userId)) {
+                        continue;
+                    }
+                    dayCandidates.add(new FreeSlotDto(doctor.getId(), doctor.getName(), doctor.getSpecialization(), start));
+                }
+            }
+            dayCandidates.sort(Comparator.comparing(FreeSlotDto::getAppointmentTime)
+                    .thenComparing(FreeSlotDto::getDoctorId));
+            for (FreeSlotDto candidate : dayCandidates) {
+                if (result.size() == wanted) {
+                    break;
+                }
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.hms.service;
+
+import com.example.hms.utils.BoundedCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Replays the response of a write that was already executed under the same
+ * Idempotency-Key, so client retries on a flaky network neither duplicate the write nor
+ * touch the database again.
+ *
+ * Keys are scoped per user and per endpoint. Successful responses are kept in a bounded
+ * cache for a limited time; failures are not cached, so a retry after an error runs again.
+ * A retry that arrives while the original is still running waits for its outcome.
+ */
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired private SecurityHelper securityHelper;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${hms.app.idempotency.cacheSize:10000}")
+    private int cacheSize;
+
+    @Value("${hms.app.idempotency.ttlMinutes:60}")
+    private long ttlMinutes;
+
+    private BoundedCache<String, Completed> completed;
+    private final Map<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+    // Sorted map keys so equal bodies always serialize to the same bytes
+    private ObjectWriter fingerprintWriter;
+
+    @PostConstruct
+    void init() {
+        completed = new BoundedCache<>(cacheSize, ttlMinutes * 60_000);
+        fingerprintWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    /**
+     * Runs action once per (user, scope, key) and returns its result, or the stored result
+     * of the first execution. Without a key the action simply runs. A SHA-256 of the
+     * serialized request body guards against a key being reused for a different request.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String scope, Object request, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+        String cacheKey = securityHelper.getCurrentUserId() + ":" + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        Completed previous = completed.get(cacheKey);
+        if (previous != null) {
+            return (T) previous.replay(fingerprint);
+        }
+
+        CompletableFuture<Completed> mine = new CompletableFuture<>();
+        CompletableFuture<Completed> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return (T) awaitOriginal(running).replay(fingerprint);
+        }
+        try {
+            // Re-check: the original may have finished between the cache miss and putIfAbsent
+            previous = completed.get(cacheKey);
+            if (previous != null) {
+                mine.complete(previous);
+                return (T) previous.replay(fingerprint);
+            }
+            T result = action.get();
+            Completed done = new Completed(fingerprint, result);
+            completed.put(cacheKey, done);
+            mine.complete(done);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(fingerprintWriter.writeValueAsBytes(request)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request body cannot be serialized.", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Completed awaitOriginal(CompletableFuture<Completed> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Completed {
+        private final String fingerprint;
+        private final Object response;
+
+        private Completed(String fingerprint, Object response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+
+        private Object replay(String requestFingerprint) {
+            if (!requestFingerprint.equals(fingerprint)) {
+                throw new IllegalArgumentException(HEADER + " was already used for a different request.");
+            }
+            return response;
+        }
+    }
+}
@@ -1,25 +1,35 @@
 // src/main/java/com/example/hms/service/MedicalRecordService.java
 package com.example.hms.service;
 
+import com.example.hms.dto.ChangeSet;
+import com.example.hms.dto.CursorPage;
 import com.example.hms.dto.MedicalRecordDto;
 import com.example.hms.dto.MedicalRecordRequest;
+import com.example.hms.dto.MedicalRecordSummaryDto;
 import com.example.hms.enums.RoleName;
+import com.example.hms.event.AppointmentChangedEvent;
 import com.example.hms.model.Appointment;
 import com.example.hms.model.AppointmentStatus;
-import com.example.hms.model.Doctor;
 import com.example.hms.model.MedicalRecord;
 import com.example.hms.model.Patient;
 import com.example.hms.repository.AppointmentRepository;
 import com.example.hms.repository.DoctorRepository;
 import com.example.hms.repository.MedicalRecordRepository;
 import com.example.hms.repository.PatientRepository;
+import com.example.hms.utils.PageCursor;
+import com.example.hms.utils.StripedLocks;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class MedicalRecordService {
@@ -29,6 +39,20 @@ public class MedicalRecordService {
     @Autowired private PatientRepository patientRepository;
     @Autowired private SecurityHelper securityHelper; // Custom helper for current user info
     @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private ChangeSequence changeSequence;
+    @Autowired private RecordSearchIndex searchIndex;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    // Serializes record creation per appointment without a global lock
+    private final StripedLocks appointmentLocks = new StripedLocks(64);
+
+    @Value("${hms.app.pageSize:50}")
+    private int defaultPageSize;
+
+    @Value("${hms.app.maxPageSize:200}")
+    private int maxPageSize;
+
     // --- Utility Method for Mapping ---
     private MedicalRecordDto mapToDto(MedicalRecord record) {
         MedicalRecordDto dto = new MedicalRecordDto();
@@ -42,39 +66,72 @@ public class MedicalRecordService {
         
         dto.setPatientId(record.getPatient().getId());
         dto.setPatientName(record.getPatient().getName());
+        dto.setChangeSeq(record.getChangeSeq());
         return dto;
     }
 
     // ----------------------------------------------------------------------
     // VIEWING LOGIC (RBAC Enforcement)
     // ----------------------------------------------------------------------
-    public List<MedicalRecordDto> getRecordsAccessibleByCurrentUser() {
+    /**
+     * Returns one keyset page of records, ordered by (recordedAt, id).
+     * Pass the previous page's nextCursor to continue.
+     */
+    public CursorPage<MedicalRecordSummaryDto> getRecordsAccessibleByCurrentUser(String cursor, Integer limit) {
         RoleName role = securityHelper.getCurrentUserRole();
-        Long currentUserId = securityHelper.getCurrentUserId();
         
-        List<MedicalRecord> records;
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.clampLimit(limit, defaultPageSize, maxPageSize);
+        Long doctorId = null;
+        Long patientId = null;
         
-        if (role == RoleName.ROLE_ADMIN) {
-            // Admin sees all records
-            records = recordRepository.findAll();
-        } else if (role == RoleName.ROLE_DOCTOR) {
+        // Admin sees all records (no scope)
+        if (role == RoleName.ROLE_DOCTOR) {
             // Doctor: Only sees records they authored.
-            Doctor doctor = doctorRepository.findByUserId(currentUserId)
+            doctorId = securityHelper.getCurrentProfileId()
                     .orElseThrow(() -> new EntityNotFoundException("Doctor profile missing."));
             
-            records = recordRepository.findByDoctorId(doctor.getId());
-            
         } else if (role == RoleName.ROLE_PATIENT) {
             // Patient: Only sees their own records.
-            Patient patient = patientRepository.findByUserId(currentUserId)
+            patientId = securityHelper.getCurrentProfileId()
                     .orElseThrow(() -> new EntityNotFoundException("Patient profile missing."));
             
-            records = recordRepository.findByPatientId(patient.getId()); 
-        } else {
-             return List.of();
+        } else if (role != RoleName.ROLE_ADMIN) {
+             return new CursorPage<>(List.of(), null);
         }
         
-        return records.stream().map(this::mapToDto).collect(Collectors.toList());
+        List<MedicalRecordSummaryDto> rows = recordRepository.findSummaryPage(doctorId, patientId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null,
+                PageRequest.of(0, pageSize + 1));
+        
+        return CursorPage.of(rows, pageSize, dto -> new PageCursor(dto.getRecordedAt(), dto.getId()));
+    }
+
+    /**
+     * Delta sync: records of the logged-in user's scope written after 'since'.
+     */
+    public ChangeSet<MedicalRecordSummaryDto> getRecordChangesForCurrentUser(long since, Integer limit) {
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorId = null;
+        Long patientId = null;
+
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorId = securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Doctor profile missing."));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            patientId = securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Patient profile missing."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            return new ChangeSet<>(List.of(), since, false);
+        }
+
+        // Read the watermark first: nothing at or below it can still commit later
+        long upTo = changeSequence.visibleUpTo();
+        int pageSize = PageCursor.clampLimit(limit, defaultPageSize, maxPageSize);
+        List<MedicalRecordSummaryDto> rows = recordRepository.findSummaryChanges(doctorId, patientId, since, upTo,
+                PageRequest.of(0, pageSize + 1));
+
+        return ChangeSet.of(rows, pageSize, since, upTo, MedicalRecordSummaryDto::getChangeSeq);
     }
 
     // ----------------------------------------------------------------------
@@ -84,14 +141,13 @@ public class MedicalRecordService {
 
     public MedicalRecordDto createRecord(MedicalRecordRequest request) {
         RoleName role = securityHelper.getCurrentUserRole();
-        Long currentUserId = securityHelper.getCurrentUserId();
 
         if (role != RoleName.ROLE_DOCTOR && role != RoleName.ROLE_ADMIN) {
             throw new AccessDeniedException("Only Doctors and Admins can create medical records.");
         }
 
         // 1. Identify the Doctor writing the record using the JWT
-        Doctor treatingDoctor = doctorRepository.findByUserId(currentUserId)
+        Long treatingDoctorId = securityHelper.getCurrentProfileId()
             .orElseThrow(() -> new EntityNotFoundException("Doctor profile not found for logged-in user."));
         
         // 2. Fetch and validate the specific Appointment instance using the new ID
@@ -104,19 +160,19 @@ public class MedicalRecordService {
 
         // 4. CRITICAL SECURITY CHECK (Doctor ID Mismatch): 
         // Ensure the doctor writing the record is the one authenticated via the token.
-        if (!appointment.getDoctor().getId().equals(treatingDoctor.getId()) && role != RoleName.ROLE_ADMIN) {
+        if (!appointment.getDoctor().getId().equals(treatingDoctorId) && role != RoleName.ROLE_ADMIN) {
              throw new AccessDeniedException("Security violation: You can only record treatment for appointments assigned to you.");
         }
-        
-        // 5. CRITICAL CONSTRAINT CHECK: Prevent double documentation
-        if (recordRepository.existsByAppointmentId(appointment.getId())) {
-            throw new IllegalArgumentException("Medical Record already exists for Appointment ID: " + appointment.getId());
+
+        // A cancelled appointment has released its slot; documenting it must not take it back
+        if (appointment.getStatus() == AppointmentStatus.CANCELLED) {
+            throw new IllegalArgumentException("Cannot create a medical record for cancelled Appointment ID: " + appointment.getId());
         }
         
-        // 6. Create the new Medical Record
+        // 5. Create the new Medical Record
         MedicalRecord record = new MedicalRecord();
         record.setPatient(patient);
-        record.setDoctor(treatingDoctor); 
+        record.setDoctor(doctorRepository.getReferenceById(treatingDoctorId)); 
         
         // CRITICAL FIX: Link the new record directly to the Appointment instance
         record.setAppointment(appointment); 
@@ -125,33 +181,91 @@ public class MedicalRecordService {
         record.setConsultationNotes(request.getConsultationNotes());
         record.setRecordedAt(LocalDateTime.now());
 
-        // 7. Automatically update the Appointment Status to COMPLETED
-        appointment.setStatus(AppointmentStatus.COMPLETED);
-        appointmentRepository.save(appointment); // Save the status change
-        
-        // 8. Save the Medical Record
-        MedicalRecord savedRecord = recordRepository.save(record);
+        // 6. Check-then-insert under the appointment's lock so concurrent submissions for the
+        // same appointment cannot both pass the existence check
+        MedicalRecord savedRecord;
+        Lock lock = appointmentLocks.forKey(appointment.getId());
+        lock.lock();
+        try {
+            // CRITICAL CONSTRAINT CHECK: Prevent double documentation
+            if (recordRepository.existsByAppointmentId(appointment.getId())) {
+                throw new IllegalArgumentException("Medical Record already exists for Appointment ID: " + appointment.getId());
+            }
+
+            // 7. Automatically update the Appointment Status to COMPLETED and 8. save the
+            // Medical Record in one transaction, so a failed insert also undoes the status.
+            // The update is conditional and leaves active_slot alone, so an appointment
+            // cancelled since it was read (and its slot, possibly re-booked) stays as it is.
+            // The unique appointment_id still guards other instances; saveAndFlush surfaces
+            // its violation here instead of at commit.
+            savedRecord = transactionTemplate.execute(tx -> {
+                if (appointmentRepository.markCompleted(appointment.getId(), changeSequence.next()) == 0) {
+                    throw new IllegalArgumentException("Cannot create a medical record for cancelled Appointment ID: " + appointment.getId());
+                }
+                return recordRepository.saveAndFlush(record);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // The only unique constraint a record insert can hit is its appointment_id
+            throw new IllegalArgumentException("Medical Record already exists for Appointment ID: " + appointment.getId());
+        } finally {
+            lock.unlock();
+        }
+
+        // 9. Make the new record searchable
+        searchIndex.add(savedRecord.getId(), treatingDoctorId, patient.getId(),
+            savedRecord.getDiagnosis(), savedRecord.getConsultationNotes());
+
+        // 10. Notify listeners (today cache, etc.) that the appointment is now COMPLETED with a record
+        appointmentRepository.findDtoById(appointment.getId()).ifPresent(dto -> eventPublisher.publishEvent(
+                new AppointmentChangedEvent(AppointmentChangedEvent.Type.RECORD_CREATED, dto)));
         
         return mapToDto(savedRecord);
     }
+    /**
+     * Returns a record only if the logged-in user may see it: admins any record, doctors
+     * the records they authored, patients their own. The check is part of the query, so an
+     * unauthorized ID costs one indexed lookup and is reported exactly like a missing one.
+     */
     public MedicalRecordDto getRecordById(Long recordId) {
-        MedicalRecord record = recordRepository.findById(recordId)
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorId = null;
+        Long patientId = null;
+
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Doctor profile missing."));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            patientId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Patient profile missing."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            throw new AccessDeniedException("You are not authorized to view medical records.");
+        }
+
+        return recordRepository.findAccessibleDtoById(recordId, doctorId, patientId, role == RoleName.ROLE_ADMIN)
             .orElseThrow(() -> new EntityNotFoundException("Medical Record not found with ID: " + recordId));
+    }
 
+    /**
+     * Same rules as getRecordById without loading the record: passes for users who may see
+     * it, or with forWrite only for admins and its authoring doctor. Used by attachments.
+     */
+    public void checkRecordAccess(Long recordId, boolean forWrite) {
         RoleName role = securityHelper.getCurrentUserRole();
-        Long currentUserId = securityHelper.getCurrentUserId();
+        Long doctorId = null;
+        Long patientId = null;
 
         if (role == RoleName.ROLE_DOCTOR) {
-            Doctor doctor = doctorRepository.findByUserId(currentUserId)
+            doctorId = securityHelper.getCurrentProfileId()
                 .orElseThrow(() -> new AccessDeniedException("Doctor profile missing."));
-            
-            // Check if the appointment or record involves the logged-in doctor
-//            if (!record.getDoctor().getId().equals(doctor.getId())) {
-//                 throw new AccessDeniedException("You are not authorized to view this record.");
-//            }
+        } else if (role == RoleName.ROLE_PATIENT && !forWrite) {
+            patientId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Patient profile missing."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            throw new AccessDeniedException("You are not authorized to modify medical records.");
         }
-        // Patient authorization check would also be needed here if fetching by record ID
 
-        return mapToDto(record);
+        if (!recordRepository.isAccessible(recordId, doctorId, patientId, role == RoleName.ROLE_ADMIN)) {
+            throw new EntityNotFoundException("Medical Record not found with ID: " + recordId);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.CursorPage;
+import com.example.hms.dto.TimelineEntryDto;
+import com.example.hms.enums.RoleName;
+import com.example.hms.repository.AppointmentRepository;
+import com.example.hms.utils.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class PatientTimelineService {
+
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private SecurityHelper securityHelper;
+
+    @Value("${hms.app.pageSize:50}")
+    private int defaultPageSize;
+
+    @Value("${hms.app.maxPageSize:200}")
+    private int maxPageSize;
+
+    /**
+     * One page of a patient's visits with their records, newest first. Admins see the whole
+     * timeline, doctors the visits they attended (the records they authored), patients only
+     * their own timeline. Pass the previous page's nextCursor to continue.
+     */
+    public CursorPage<TimelineEntryDto> getTimeline(Long patientId, String cursor, Integer limit) {
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorId = null;
+
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Doctor profile missing."));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            Long ownId = securityHelper.getCurrentProfileId()
+                .orElseThrow(() -> new AccessDeniedException("Patient profile missing."));
+            if (!ownId.equals(patientId)) {
+                throw new AccessDeniedException("Patients can only view their own timeline.");
+            }
+        } else if (role != RoleName.ROLE_ADMIN) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        PageCursor before = PageCursor.decode(cursor);
+        int pageSize = PageCursor.clampLimit(limit, defaultPageSize, maxPageSize);
+        List<TimelineEntryDto> rows = appointmentRepository.findTimelinePage(patientId, doctorId,
+            before != null ? before.getTime() : null, before != null ? before.getId() : null,
+            PageRequest.of(0, pageSize + 1));
+
+        return CursorPage.of(rows, pageSize, entry -> new PageCursor(entry.getAppointmentTime(), entry.getAppointmentId()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.hms.service;
+
+import com.example.hms.enums.RoleName;
+import com.example.hms.repository.DoctorRepository;
+import com.example.hms.repository.PatientRepository;
+import com.example.hms.utils.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Optional;
+
+/**
+ * Maps a user ID to its Doctor or Patient profile ID through a bounded cache,
+ * so services do not need a findByUserId round trip on every call.
+ * Admins have no profile and always resolve to empty.
+ */
+@Component
+public class ProfileResolver {
+
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private PatientRepository patientRepository;
+
+    @Value("${hms.app.profileCacheSize:10000}")
+    private int profileCacheSize;
+
+    private BoundedCache<Long, Long> profileIds;
+
+    @PostConstruct
+    void init() {
+        profileIds = new BoundedCache<>(profileCacheSize, 0);
+    }
+
+    public Optional<Long> resolveProfileId(Long userId, RoleName role) {
+        if (role == RoleName.ROLE_DOCTOR) {
+            return Optional.ofNullable(profileIds.get(userId, id -> doctorRepository.findIdByUserId(id).orElse(null)));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            return Optional.ofNullable(profileIds.get(userId, id -> patientRepository.findIdByUserId(id).orElse(null)));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Drops the cached mapping for a user. Called whenever a profile is created for the user.
+     */
+    public void evict(Long userId) {
+        profileIds.invalidate(userId);
+    }
+}
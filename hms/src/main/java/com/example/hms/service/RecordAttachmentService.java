@@ -0,0 +1,124 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.RecordAttachmentDto;
+import com.example.hms.model.RecordAttachment;
+import com.example.hms.repository.MedicalRecordRepository;
+import com.example.hms.repository.RecordAttachmentRepository;
+import com.example.hms.utils.StripedLocks;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Files attached to medical records. Every operation first runs the record access check
+ * of MedicalRecordService: whoever may see a record may list and download its
+ * attachments; admins and the authoring doctor may add to it.
+ */
+@Service
+public class RecordAttachmentService {
+
+    private static final int MAX_FILE_NAME = 255;
+
+    @Autowired private MedicalRecordService recordService;
+    @Autowired private MedicalRecordRepository recordRepository;
+    @Autowired private RecordAttachmentRepository attachmentRepository;
+    @Autowired private AttachmentStore attachmentStore;
+    @Autowired private SecurityHelper securityHelper;
+
+    // Serializes moving a blob into place, saving its row and deleting it after a failed save,
+    // per content hash. Locks are per JVM (single instance, see ChangeSequence).
+    private final StripedLocks blobLocks = new StripedLocks(64);
+
+    public RecordAttachmentDto upload(Long recordId, String fileName, String contentType, InputStream content) {
+        // 1. Authorize before reading a single byte of the body
+        recordService.checkRecordAccess(recordId, true);
+
+        String name = sanitizeFileName(fileName);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("A file name is required.");
+        }
+
+        // 2. Stream the body to a temporary file; empty uploads never reach the store
+        RecordAttachment saved;
+        try (AttachmentStore.ReceivedBlob blob = attachmentStore.receive(content)) {
+            if (blob.getSize() == 0) {
+                throw new IllegalArgumentException("Attachment is empty.");
+            }
+
+            // 3. Blob and metadata row under the hash lock, so a failed save can drop content no row references
+            Lock lock = blobLocks.forKey(blob.getSha256());
+            lock.lock();
+            try {
+                attachmentStore.commit(blob);
+                RecordAttachment attachment = new RecordAttachment();
+                attachment.setRecord(recordRepository.getReferenceById(recordId));
+                attachment.setFileName(name);
+                attachment.setContentType(contentType == null || contentType.isBlank() ? "application/octet-stream" : contentType);
+                attachment.setSizeBytes(blob.getSize());
+                attachment.setSha256(blob.getSha256());
+                attachment.setUploadedBy(securityHelper.getCurrentUserId());
+                try {
+                    saved = attachmentRepository.save(attachment);
+                } catch (RuntimeException e) {
+                    if (!attachmentRepository.existsBySha256(blob.getSha256())) {
+                        attachmentStore.delete(blob.getSha256());
+                    }
+                    throw e;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return new RecordAttachmentDto(saved.getId(), recordId, saved.getFileName(), saved.getContentType(),
+            saved.getSizeBytes(), saved.getSha256(), saved.getUploadedAt());
+    }
+
+    public List<RecordAttachmentDto> listAttachments(Long recordId) {
+        recordService.checkRecordAccess(recordId, false);
+        return attachmentRepository.findDtosByRecordId(recordId);
+    }
+
+    /**
+     * Metadata and file of one attachment, for the download endpoint.
+     */
+    public Download openAttachment(Long recordId, Long attachmentId) {
+        recordService.checkRecordAccess(recordId, false);
+        RecordAttachmentDto attachment = attachmentRepository.findDtoByIdAndRecordId(attachmentId, recordId)
+            .orElseThrow(() -> new EntityNotFoundException("Attachment not found with ID: " + attachmentId));
+        Path file = attachmentStore.path(attachment.getSha256());
+        if (!Files.isReadable(file)) {
+            throw new EntityNotFoundException("Attachment content missing for ID: " + attachmentId);
+        }
+        return new Download(attachment, file);
+    }
+
+    // Keeps the last path segment and drops control characters, so the name is safe in headers
+    private static String sanitizeFileName(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1)
+            .replaceAll("\\p{Cntrl}", "").trim();
+        return name.length() > MAX_FILE_NAME ? name.substring(name.length() - MAX_FILE_NAME) : name;
+    }
+
+    public static final class Download {
+        private final RecordAttachmentDto attachment;
+        private final Path file;
+
+        private Download(RecordAttachmentDto attachment, Path file) {
+            this.attachment = attachment;
+            this.file = file;
+        }
+
+        public RecordAttachmentDto getAttachment() { return attachment; }
+        public Path getFile() { return file; }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.MedicalRecordSummaryDto;
+import com.example.hms.enums.RoleName;
+import com.example.hms.repository.MedicalRecordRepository;
+import com.example.hms.utils.InvertedIndex;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over medical records (diagnosis and consultation notes) from an
+ * in-process inverted index, instead of LIKE '%x%' scans over the TEXT column.
+ *
+ * The index is rebuilt from the database in keyset batches when the application starts
+ * and MedicalRecordService adds every new record. Records created while the rebuild is
+ * still running are queued (and skipped by the rebuild) and applied afterwards, so none
+ * is missed or indexed twice.
+ * Results use the same scoping as the record list: doctors search the records they
+ * authored, patients their own, admins everything.
+ */
+@Component
+public class RecordSearchIndex {
+
+    private static final int REBUILD_BATCH = 1000;
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired private MedicalRecordRepository recordRepository;
+    @Autowired private SecurityHelper securityHelper;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    // Guarded by this: until the rebuild finishes, new records wait here by id
+    private boolean ready;
+    private final Map<Long, MedicalRecordRepository.IndexedRecord> pending = new LinkedHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        index.clear();
+        long afterId = 0;
+        List<MedicalRecordRepository.IndexedRecord> batch;
+        do {
+            batch = recordRepository.findIndexBatch(afterId, PageRequest.of(0, REBUILD_BATCH));
+            synchronized (this) {
+                for (MedicalRecordRepository.IndexedRecord record : batch) {
+                    if (!pending.containsKey(record.getId())) {
+                        addToIndex(record);
+                    }
+                    afterId = record.getId();
+                }
+            }
+        } while (batch.size() == REBUILD_BATCH);
+
+        synchronized (this) {
+            pending.values().forEach(this::addToIndex);
+            pending.clear();
+            ready = true;
+        }
+    }
+
+    /**
+     * Indexes a newly created record. Called by MedicalRecordService after the insert.
+     */
+    public void add(Long id, Long doctorId, Long patientId, String diagnosis, String consultationNotes) {
+        MedicalRecordRepository.IndexedRecord record = new NewRecord(id, doctorId, patientId, diagnosis, consultationNotes);
+        synchronized (this) {
+            if (!ready) {
+                pending.put(id, record);
+                return;
+            }
+        }
+        addToIndex(record);
+    }
+
+    /**
+     * Searches the logged-in user's records, newest first. Supports plain terms, prefix
+     * terms (diab*) and "quoted phrases"; all parts must match. patientId narrows a
+     * doctor's or admin's search to one patient's history.
+     */
+    public List<MedicalRecordSummaryDto> search(String query, Long patientId, Integer limit) {
+        RoleName role = securityHelper.getCurrentUserRole();
+        Long doctorScope = null;
+        Long patientScope = patientId;
+
+        if (role == RoleName.ROLE_DOCTOR) {
+            doctorScope = securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Doctor profile missing."));
+        } else if (role == RoleName.ROLE_PATIENT) {
+            patientScope = securityHelper.getCurrentProfileId()
+                    .orElseThrow(() -> new EntityNotFoundException("Patient profile missing."));
+        } else if (role != RoleName.ROLE_ADMIN) {
+            return List.of();
+        }
+
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        List<Long> ids = index.search(query, doctorScope, patientScope, max);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // One IN query for the rows, returned in the index's (newest first) order
+        Map<Long, MedicalRecordSummaryDto> rows = recordRepository.findSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(MedicalRecordSummaryDto::getId, Function.identity()));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private void addToIndex(MedicalRecordRepository.IndexedRecord record) {
+        index.add(record.getId(), record.getDoctorId(), record.getPatientId(),
+                record.getDiagnosis(), record.getConsultationNotes());
+    }
+
+    private static final class NewRecord implements MedicalRecordRepository.IndexedRecord {
+        private final Long id;
+        private final Long doctorId;
+        private final Long patientId;
+        private final String diagnosis;
+        private final String consultationNotes;
+
+        private NewRecord(Long id, Long doctorId, Long patientId, String diagnosis, String consultationNotes) {
+            this.id = id;
+            this.doctorId = doctorId;
+            this.patientId = patientId;
+            this.diagnosis = diagnosis;
+            this.consultationNotes = consultationNotes;
+        }
+
+        @Override public Long getId() { return id; }
+        @Override public Long getDoctorId() { return doctorId; }
+        @Override public Long getPatientId() { return patientId; }
+        @Override public String getDiagnosis() { return diagnosis; }
+        @Override public String getConsultationNotes() { return consultationNotes; }
+    }
+}
@@ -3,14 +3,19 @@ package com.example.hms.service;
 
 import com.example.hms.enums.RoleName;
 import com.example.hms.security.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 
 @Component
 public class SecurityHelper {
 
+    @Autowired private ProfileResolver profileResolver;
+
     private UserDetailsImpl getCurrentUserDetails() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
@@ -39,4 +44,17 @@ public class SecurityHelper {
                             .getAuthority();
         return RoleName.valueOf(roleName); 
     }
+
+    /**
+     * Doctor or Patient profile ID of the logged-in user. Taken from the token claims
+     * when present, otherwise resolved through the cached userId -> profileId mapping.
+     * Empty for admins and for users without a linked profile.
+     */
+    public Optional<Long> getCurrentProfileId() {
+        UserDetailsImpl userDetails = getCurrentUserDetails();
+        if (userDetails.getProfileId() != null) {
+            return Optional.of(userDetails.getProfileId());
+        }
+        return profileResolver.resolveProfileId(userDetails.getId(), RoleName.valueOf(userDetails.getRole()));
+    }
 }
\ No newline at end of file
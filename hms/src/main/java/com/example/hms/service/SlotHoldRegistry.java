@@ -0,0 +1,146 @@
+package com.example.hms.service;
+
+import com.example.hms.utils.TimerWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Short-lived, in-memory reservations of a doctor slot while a user fills in the booking
+ * form. A hold blocks the slot for everyone else until it is booked, released or expires;
+ * nothing is written to the database.
+ *
+ * Each user has at most one hold: placing a new one replaces the previous one. Expiry is
+ * driven by a timer wheel ticking once per second; reads also compare the deadline, so a
+ * hold never outlives its TTL by a tick.
+ *
+ * Callers place and consume holds under AppointmentService's doctor lock, so the
+ * "slot free and not held" check and the booking are atomic.
+ */
+@Component
+public class SlotHoldRegistry {
+
+    @Autowired private DoctorScheduleIndex scheduleIndex;
+
+    @Value("${hms.app.slotHoldSeconds:300}")
+    private long holdSeconds;
+
+    private final TimerWheel<Hold> expiries = new TimerWheel<>(1000, 512);
+    private final Map<String, Hold> holdsById = new HashMap<>();
+    private final Map<Long, Hold> holdsByUser = new HashMap<>();
+    private final Map<Long, TreeMap<LocalDateTime, Hold>> holdsByDoctor = new HashMap<>();
+
+    public Duration getHoldDuration() {
+        return Duration.ofSeconds(holdSeconds);
+    }
+
+    /**
+     * Places a hold for the user, replacing any earlier hold of theirs. The caller has
+     * already checked that the slot is free and not held by someone else.
+     */
+    public synchronized Hold place(Long userId, Long doctorId, LocalDateTime start) {
+        Hold previous = holdsByUser.get(userId);
+        if (previous != null) {
+            remove(previous);
+        }
+        long expiresAt = System.currentTimeMillis() + holdSeconds * 1000;
+        Hold hold = new Hold(UUID.randomUUID().toString(), userId, doctorId, start, expiresAt);
+        hold.timeout = expiries.schedule(hold, expiresAt);
+        holdsById.put(hold.id, hold);
+        holdsByUser.put(userId, hold);
+        holdsByDoctor.computeIfAbsent(doctorId, id -> new TreeMap<>()).put(start, hold);
+        return hold;
+    }
+
+    /**
+     * True when a live hold of another user overlaps [start, start + slot length).
+     */
+    public synchronized boolean isHeldByOther(Long doctorId, LocalDateTime start, Long userId) {
+        TreeMap<LocalDateTime, Hold> holds = holdsByDoctor.get(doctorId);
+        if (holds == null) {
+            return false;
+        }
+        Duration slot = scheduleIndex.getSlotLength();
+        long now = System.currentTimeMillis();
+        for (Hold hold : holds.subMap(start.minus(slot), false, start.plus(slot), false).values()) {
+            if (!hold.userId.equals(userId) && hold.expiresAt > now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the user's hold on exactly this slot, if any; called once the slot is booked.
+     */
+    public synchronized void consume(Long userId, Long doctorId, LocalDateTime start) {
+        Hold hold = holdsByUser.get(userId);
+        if (hold != null && hold.doctorId.equals(doctorId) && hold.start.equals(start)) {
+            remove(hold);
+        }
+    }
+
+    /**
+     * Releases a hold before it expires. Only the user who placed it may release it.
+     */
+    public synchronized boolean release(String holdId, Long userId) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null || !hold.userId.equals(userId)) {
+            return false;
+        }
+        remove(hold);
+        return true;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void expireHolds() {
+        expiries.advance(System.currentTimeMillis(), this::expire);
+    }
+
+    private synchronized void expire(Hold hold) {
+        // The hold may have been consumed or replaced since the wheel picked it up
+        if (holdsById.get(hold.id) == hold) {
+            remove(hold);
+        }
+    }
+
+    private void remove(Hold hold) {
+        expiries.cancel(hold.timeout);
+        holdsById.remove(hold.id);
+        holdsByUser.remove(hold.userId, hold);
+        TreeMap<LocalDateTime, Hold> holds = holdsByDoctor.get(hold.doctorId);
+        if (holds != null && holds.remove(hold.start, hold) && holds.isEmpty()) {
+            holdsByDoctor.remove(hold.doctorId);
+        }
+    }
+
+    public static final class Hold {
+        private final String id;
+        private final Long userId;
+        private final Long doctorId;
+        private final LocalDateTime start;
+        private final long expiresAt;
+        private TimerWheel.Timeout<Hold> timeout;
+
+        private Hold(String id, Long userId, Long doctorId, LocalDateTime start, long expiresAt) {
+            this.id = id;
+            this.userId = userId;
+            this.doctorId = doctorId;
+            this.start = start;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() { return id; }
+        public Long getDoctorId() { return doctorId; }
+        public LocalDateTime getStart() { return start; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.TextCompressionReport;
+import com.example.hms.utils.TextCompression;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background recompression of rows written before text compression was enabled.
+ *
+ * Walks medical_record.consultation_notes and appointment.reason in id order, one batch
+ * per statement pair (keyset SELECT, batched UPDATE), so no long transaction or table
+ * lock is held. Only the storage format changes, not the text, so change_seq is left
+ * alone and sync clients see nothing.
+ *
+ * Each UPDATE also matches on the value that was read. A row edited between the SELECT
+ * and the UPDATE is therefore skipped, not overwritten with stale text, and is not
+ * counted. Every compressed value is decoded once before it is written, which both
+ * verifies the round trip and measures the read-side cost.
+ */
+@Service
+public class TextCompressionJob {
+
+    // Table and column pairs; fixed here, never taken from a request
+    private static final String[][] COLUMNS = {
+        { "medical_record", "consultation_notes" },
+        { "appointment", "reason" }
+    };
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${hms.app.textCompression.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hms.app.textCompression.batchSize:500}")
+    private int batchSize;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    private String state = "IDLE";
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private List<Stats> stats = new ArrayList<>();
+
+    /**
+     * Starts a run unless one is already in progress. Requires compression to be enabled,
+     * otherwise new writes would keep adding uncompressed rows behind the job.
+     */
+    public synchronized TextCompressionReport start() {
+        if (!enabled) {
+            throw new IllegalStateException("Text compression is disabled; set hms.app.textCompression.enabled=true first.");
+        }
+        if (!"RUNNING".equals(state)) {
+            state = "RUNNING";
+            startedAt = LocalDateTime.now();
+            finishedAt = null;
+            error = null;
+            stats = new ArrayList<>();
+            worker.execute(this::run);
+        }
+        return report();
+    }
+
+    public synchronized TextCompressionReport report() {
+        List<TextCompressionReport.ColumnStats> columns = new ArrayList<>(stats.size());
+        for (Stats s : stats) {
+            columns.add(new TextCompressionReport.ColumnStats(s.column, s.rowsScanned, s.rowsCompressed,
+                s.bytesBefore, s.bytesAfter, s.bytesBefore - s.bytesAfter, s.compressNanos / 1_000_000,
+                s.rowsCompressed == 0 ? 0 : s.decompressNanos / 1000.0 / s.rowsCompressed));
+        }
+        return new TextCompressionReport(state, enabled, startedAt, finishedAt, error, columns);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            for (String[] column : COLUMNS) {
+                Stats s = new Stats(column[0] + "." + column[1]);
+                synchronized (this) {
+                    stats.add(s);
+                }
+                recompress(column[0], column[1], s);
+            }
+            finish("DONE", null);
+        } catch (RuntimeException e) {
+            finish("FAILED", e.getMessage());
+        }
+    }
+
+    private void recompress(String table, String column, Stats s) {
+        String select = "SELECT id, " + column + " FROM " + table
+            + " WHERE id > ? AND " + column + " IS NOT NULL ORDER BY id LIMIT ?";
+        String update = "UPDATE " + table + " SET " + column + " = ? WHERE id = ? AND " + column + " = ?";
+        long afterId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Object[]> rows = jdbcTemplate.query(select,
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getString(2) }, afterId, batchSize);
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            // Per pending update: bytes before, bytes after, compress and decompress nanos
+            List<long[]> measures = new ArrayList<>();
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                String stored = (String) row[1];
+                if (TextCompression.isCompressed(stored)) {
+                    continue;
+                }
+                String text = TextCompression.decode(stored);
+
+                long t0 = System.nanoTime();
+                String encoded = TextCompression.encode(text, true);
+                long t1 = System.nanoTime();
+                if (!TextCompression.isCompressed(encoded)) {
+                    continue; // too short or incompressible
+                }
+                String roundTrip = TextCompression.decode(encoded);
+                long t2 = System.nanoTime();
+                if (!text.equals(roundTrip)) {
+                    throw new IllegalStateException("Round trip mismatch in " + table + " row " + afterId);
+                }
+
+                updates.add(new Object[] { encoded, afterId, stored });
+                // marker and base64 are ASCII
+                measures.add(new long[] { stored.getBytes(StandardCharsets.UTF_8).length, encoded.length(), t1 - t0, t2 - t1 });
+            }
+            int[] counts = updates.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(update, updates);
+
+            synchronized (this) {
+                s.rowsScanned += rows.size();
+                for (int i = 0; i < counts.length; i++) {
+                    // 0: the row changed since it was read and was left as is
+                    if (counts[i] == 0) {
+                        continue;
+                    }
+                    long[] m = measures.get(i);
+                    s.rowsCompressed++;
+                    s.bytesBefore += m[0];
+                    s.bytesAfter += m[1];
+                    s.compressNanos += m[2];
+                    s.decompressNanos += m[3];
+                }
+            }
+        }
+    }
+
+    private synchronized void finish(String finalState, String message) {
+        state = finalState;
+        error = message;
+        finishedAt = LocalDateTime.now();
+    }
+
+    private static final class Stats {
+        private final String column;
+        private long rowsScanned;
+        private long rowsCompressed;
+        private long bytesBefore;
+        private long bytesAfter;
+        private long compressNanos;
+        private long decompressNanos;
+
+        private Stats(String column) {
+            this.column = column;
+        }
+    }
+}
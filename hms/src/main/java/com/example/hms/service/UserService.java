@@ -22,6 +22,7 @@ public class UserService {
     @Autowired private PasswordEncoder passwordEncoder;
     @Autowired private DoctorRepository doctorRepository;
     @Autowired private PatientRepository patientRepository;
+    @Autowired private ProfileResolver profileResolver;
 
     /**
      * Registers a new User and creates a linked Doctor or Patient profile,
@@ -74,6 +75,9 @@ public class UserService {
             
             patientRepository.save(patient);
         }
+
+        // The new profile must be visible to the userId -> profileId cache
+        profileResolver.evict(savedUser.getId());
         
         return savedUser;
     }
@@ -0,0 +1,63 @@
+package com.example.hms.service;
+
+import com.example.hms.enums.RoleName;
+import com.example.hms.repository.AppointmentRepository;
+import com.example.hms.repository.DoctorRepository;
+import com.example.hms.repository.MedicalRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version tags for the cacheable list endpoints, used to build ETags. They are derived
+ * from the data itself, so they hold across restarts and need no write-side bookkeeping.
+ *
+ * Scopes: the doctor directory (row count and highest id), and the appointments plus
+ * medical records a user can list: everything for admins, otherwise the user's own doctor
+ * or patient scope, versioned by the highest change_seq of each table in that scope.
+ * Every insert or update stamps a new change_seq, so any write in the scope moves the tag.
+ *
+ * The change_seq maximum is capped at ChangeSequence.visibleUpTo(): a number committed
+ * after a higher one would otherwise not move the maximum, and the tag would miss it.
+ * Controllers read the tag before running their query, so a response never carries a
+ * newer tag than the data it contains.
+ */
+@Component
+public class VersionCounters {
+
+    @Autowired private SecurityHelper securityHelper;
+    @Autowired private ChangeSequence changeSequence;
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private MedicalRecordRepository recordRepository;
+    @Autowired private DoctorRepository doctorRepository;
+
+    public String doctorDirectoryTag() {
+        Long maxId = doctorRepository.findMaxId();
+        return "dir-" + doctorRepository.count() + "." + (maxId == null ? 0 : maxId);
+    }
+
+    /**
+     * Version of everything the logged-in user can list: all appointments and records for
+     * admins, otherwise the user's own doctor or patient scope.
+     */
+    public String currentUserTag() {
+        RoleName role = securityHelper.getCurrentUserRole();
+        if (role == RoleName.ROLE_ADMIN) {
+            return "all-" + scopeVersion(null, null);
+        }
+        Long profileId = securityHelper.getCurrentProfileId().orElse(null);
+        if (profileId == null) {
+            return "none";
+        }
+        if (role == RoleName.ROLE_DOCTOR) {
+            return "d" + profileId + "-" + scopeVersion(profileId, null);
+        }
+        return "p" + profileId + "-" + scopeVersion(null, profileId);
+    }
+
+    private String scopeVersion(Long doctorId, Long patientId) {
+        long upTo = changeSequence.visibleUpTo();
+        Long appointments = appointmentRepository.findMaxChangeSeq(doctorId, patientId, upTo);
+        Long records = recordRepository.findMaxChangeSeq(doctorId, patientId, upTo);
+        return (appointments == null ? 0 : appointments) + "." + (records == null ? 0 : records);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.hms.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe LRU cache with an optional per-entry expiry.
+ * Once maxSize is reached the least recently used entry is evicted.
+ */
+public class BoundedCache<K, V> {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final long ttlMillis;
+    private final Map<K, Entry<V>> entries;
+
+    /**
+     * @param maxSize   upper bound on the number of cached entries
+     * @param ttlMillis default time-to-live for put(key, value); 0 means entries never expire
+     */
+    public BoundedCache(int maxSize, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value or loads it. The loader runs outside the lock and
+     * null results are not cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : NEVER);
+    }
+
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.hms.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Positional inverted index over short text documents, with an owner and a subject id per
+ * document for scoping (e.g. doctor and patient of a medical record).
+ *
+ * Postings are append-only: every add() gets the next internal document number, so every
+ * posting list stays sorted and adds are O(tokens). Updates and deletes use tombstones.
+ * Re-adding an id appends the new text under a fresh number and marks the old number in a
+ * deleted bitset, and remove() only marks it. Searches drop tombstoned numbers from their
+ * matches, and their postings stay in memory until clear(), as done by a full rebuild.
+ * size() counts live documents only.
+ *
+ * The term dictionary is a TreeMap, so prefix queries are a sub-map range. Queries AND
+ * together their clauses:
+ * <ul>
+ *   <li>{@code asthma}: documents containing the term</li>
+ *   <li>{@code asth*}: documents containing any term with that prefix</li>
+ *   <li>{@code "chest pain"}: documents containing the terms as consecutive words</li>
+ * </ul>
+ * Matching is case-insensitive on letter/digit tokens. Reads run in parallel; writes
+ * take an exclusive lock.
+ */
+public class InvertedIndex {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern CLAUSE = Pattern.compile("\"([^\"]*)\"|(\\S+)");
+    // Cap on dictionary terms a single prefix clause may expand to
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final int MAX_CLAUSES = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private long[] ids = new long[1024];
+    private long[] owners = new long[1024];
+    private long[] subjects = new long[1024];
+    private int size;
+    // Live document number per id, and numbers of replaced or removed documents
+    private final Map<Long, Integer> docsById = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    /**
+     * Indexes one document, replacing any earlier version with the same id. Fields are
+     * tokenized in order; a phrase never spans two fields.
+     */
+    public void add(long id, long owner, long subject, String... fields) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = docsById.get(id);
+            if (previous != null) {
+                deleted.set(previous);
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                owners = Arrays.copyOf(owners, size * 2);
+                subjects = Arrays.copyOf(subjects, size * 2);
+            }
+            int doc = size++;
+            docsById.put(id, doc);
+            ids[doc] = id;
+            owners[doc] = owner;
+            subjects[doc] = subject;
+
+            int position = 0;
+            for (String field : fields) {
+                for (String token : tokenize(field)) {
+                    terms.computeIfAbsent(token, t -> new Postings()).add(doc, position++);
+                }
+                position++; // gap between fields
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of matching documents, most recently added first, at most limit of them.
+     * owner and subject restrict the result when not null.
+     */
+    public List<Long> search(String query, Long owner, Long subject, int limit) {
+        List<Clause> clauses = parse(query);
+        List<Long> result = new ArrayList<>();
+        if (clauses.isEmpty()) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet matches = null;
+            for (Clause clause : clauses) {
+                BitSet docs = clause.docs(this);
+                if (matches == null) {
+                    matches = docs;
+                    matches.andNot(deleted);
+                } else {
+                    matches.and(docs);
+                }
+                if (matches.isEmpty()) {
+                    return result;
+                }
+            }
+            for (int doc = matches.previousSetBit(size - 1); doc >= 0 && result.size() < limit;
+                    doc = matches.previousSetBit(doc - 1)) {
+                if ((owner == null || owners[doc] == owner) && (subject == null || subjects[doc] == subject)) {
+                    result.add(ids[doc]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a document from all future results. Returns false when the id is not indexed.
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docsById.remove(id);
+            if (doc == null) {
+                return false;
+            }
+            deleted.set(doc);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Number of live (not replaced or removed) documents
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docsById.clear();
+            deleted.clear();
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = TOKEN.matcher(text);
+        while (matcher.find()) {
+            tokens.add(matcher.group().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    // --- Query Parsing ---
+
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        Matcher matcher = CLAUSE.matcher(query);
+        while (matcher.find() && clauses.size() < MAX_CLAUSES) {
+            if (matcher.group(1) != null) {
+                List<String> phrase = tokenize(matcher.group(1));
+                if (phrase.size() == 1) {
+                    clauses.add(new TermClause(phrase.get(0)));
+                } else if (!phrase.isEmpty()) {
+                    clauses.add(new PhraseClause(phrase));
+                }
+            } else {
+                String word = matcher.group(2);
+                boolean prefix = word.endsWith("*");
+                List<String> tokens = tokenize(word);
+                for (int i = 0; i < tokens.size(); i++) {
+                    boolean last = i == tokens.size() - 1;
+                    clauses.add(prefix && last ? new PrefixClause(tokens.get(i)) : new TermClause(tokens.get(i)));
+                }
+            }
+        }
+        return clauses;
+    }
+
+    private interface Clause {
+        BitSet docs(InvertedIndex index);
+    }
+
+    private static final class TermClause implements Clause {
+        private final String term;
+
+        private TermClause(String term) {
+            this.term = term;
+        }
+
+        @Override
+        public BitSet docs(InvertedIndex index) {
+            Postings postings = index.terms.get(term);
+            return postings == null ? new BitSet() : postings.docSet();
+        }
+    }
+
+    private static final class PrefixClause implements Clause {
+        private final String prefix;
+
+        private PrefixClause(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public BitSet docs(InvertedIndex index) {
+            BitSet docs = new BitSet();
+            int expanded = 0;
+            for (Postings postings : index.terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                if (expanded++ == MAX_PREFIX_TERMS) {
+                    break;
+                }
+                postings.addTo(docs);
+            }
+            return docs;
+        }
+    }
+
+    private static final class PhraseClause implements Clause {
+        private final List<String> words;
+
+        private PhraseClause(List<String> words) {
+            this.words = words;
+        }
+
+        @Override
+        public BitSet docs(InvertedIndex index) {
+            Postings[] postings = new Postings[words.size()];
+            for (int i = 0; i < postings.length; i++) {
+                postings[i] = index.terms.get(words.get(i));
+                if (postings[i] == null) {
+                    return new BitSet();
+                }
+            }
+            // Documents with every word, then verify the words are consecutive
+            BitSet candidates = postings[0].docSet();
+            for (int i = 1; i < postings.length; i++) {
+                candidates.and(postings[i].docSet());
+            }
+            for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+                if (!containsPhrase(postings, doc)) {
+                    candidates.clear(doc);
+                }
+            }
+            return candidates;
+        }
+
+        private static boolean containsPhrase(Postings[] postings, int doc) {
+            int first = postings[0].indexOf(doc);
+            for (int p = postings[0].posStart[first]; p < postings[0].posEnd(first); p++) {
+                int start = postings[0].positions[p];
+                boolean match = true;
+                for (int k = 1; k < postings.length && match; k++) {
+                    match = postings[k].hasPosition(postings[k].indexOf(doc), start + k);
+                }
+                if (match) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // --- Posting Lists ---
+
+    /**
+     * Documents containing one term, ascending, with the term's positions per document
+     * stored in one flat array.
+     */
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int[] posStart = new int[2];
+        private int[] positions = new int[2];
+        private int docCount;
+        private int posCount;
+
+        void add(int doc, int position) {
+            if (docCount == 0 || docs[docCount - 1] != doc) {
+                if (docCount == docs.length) {
+                    docs = Arrays.copyOf(docs, docCount * 2);
+                    posStart = Arrays.copyOf(posStart, docCount * 2);
+                }
+                docs[docCount] = doc;
+                posStart[docCount] = posCount;
+                docCount++;
+            }
+            if (posCount == positions.length) {
+                positions = Arrays.copyOf(positions, posCount * 2);
+            }
+            positions[posCount++] = position;
+        }
+
+        BitSet docSet() {
+            BitSet set = new BitSet();
+            addTo(set);
+            return set;
+        }
+
+        void addTo(BitSet set) {
+            for (int i = 0; i < docCount; i++) {
+                set.set(docs[i]);
+            }
+        }
+
+        int indexOf(int doc) {
+            return Arrays.binarySearch(docs, 0, docCount, doc);
+        }
+
+        int posEnd(int index) {
+            return index + 1 < docCount ? posStart[index + 1] : posCount;
+        }
+
+        boolean hasPosition(int index, int position) {
+            return index >= 0 && Arrays.binarySearch(positions, posStart[index], posEnd(index), position) >= 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.hms.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position (sort timestamp + row ID) of the last row on a page.
+ * Sent to clients as an opaque URL-safe token and decoded on the next request.
+ */
+public class PageCursor {
+
+    private final LocalDateTime time;
+    private final Long id;
+
+    public PageCursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public LocalDateTime getTime() { return time; }
+    public Long getId() { return id; }
+
+    public String encode() {
+        String raw = time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded position, or null when no cursor was sent (first page)
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor.");
+        }
+    }
+
+    // Applies the default when no size was requested and caps oversized requests
+    public static int clampLimit(Integer requested, int defaultSize, int maxSize) {
+        if (requested == null || requested <= 0) {
+            return defaultSize;
+        }
+        return Math.min(requested, maxSize);
+    }
+}
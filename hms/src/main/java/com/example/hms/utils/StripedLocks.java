@@ -0,0 +1,27 @@
+package com.example.hms.utils;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks selected by key hash. Operations on the same key (e.g. one
+ * doctor's schedule) are serialized while unrelated keys rarely contend, without
+ * keeping a lock object per key.
+ */
+public class StripedLocks {
+
+    private final Lock[] stripes;
+
+    public StripedLocks(int stripeCount) {
+        stripes = new Lock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock forKey(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // spread sequential IDs across stripes
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+}
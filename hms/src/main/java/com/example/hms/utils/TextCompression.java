@@ -0,0 +1,106 @@
+package com.example.hms.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage format for long free text in TEXT columns.
+ * <ul>
+ *   <li>{@code {z1}<base64 deflate of UTF-8>}: compressed, format version 1</li>
+ *   <li>{@code {r1}<text>}: raw text that itself starts with a format marker (escaped)</li>
+ *   <li>anything else: raw text, which is how every row written before compression reads</li>
+ * </ul>
+ * Text is only compressed when it is long enough and the result is actually smaller.
+ */
+public final class TextCompression {
+
+    public static final String COMPRESSED = "{z1}";
+    public static final String RAW = "{r1}";
+    // Below this many characters the base64 overhead eats most of the gain
+    public static final int MIN_LENGTH = 256;
+
+    private TextCompression() {
+    }
+
+    /**
+     * Encodes text for storage, compressing it when compress is true and it pays off.
+     */
+    public static String encode(String text, boolean compress) {
+        if (text == null) {
+            return null;
+        }
+        if (compress && text.length() >= MIN_LENGTH) {
+            String compressed = COMPRESSED + Base64.getEncoder().encodeToString(deflate(text.getBytes(StandardCharsets.UTF_8)));
+            if (compressed.length() < text.length()) {
+                return compressed;
+            }
+        }
+        return isEncoded(text) ? RAW + text : text;
+    }
+
+    public static String decode(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.startsWith(RAW)) {
+            return stored.substring(RAW.length());
+        }
+        if (stored.startsWith(COMPRESSED)) {
+            try {
+                byte[] deflated = Base64.getDecoder().decode(stored.substring(COMPRESSED.length()));
+                return new String(inflate(deflated), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException | DataFormatException e) {
+                // Not produced by encode(); show the stored text rather than failing the read
+                return stored;
+            }
+        }
+        return stored;
+    }
+
+    public static boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(COMPRESSED);
+    }
+
+    private static boolean isEncoded(String text) {
+        return text.startsWith(COMPRESSED) || text.startsWith(RAW);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed text");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
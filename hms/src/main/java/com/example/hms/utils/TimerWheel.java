@@ -0,0 +1,90 @@
+package com.example.hms.utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for many short-lived timeouts. Scheduling and cancelling are O(1);
+ * advance() only visits the buckets of the ticks that have passed, instead of scanning
+ * every pending timeout.
+ *
+ * The wheel has no thread of its own: the owner calls advance() periodically (e.g. from
+ * a @Scheduled method). Timeouts fire at most one tick late.
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Set<Timeout<T>>> buckets;
+    private long currentTick;
+
+    public TimerWheel(long tickMillis, int wheelSize) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * Schedules item to expire at deadlineMillis (epoch millis). Keep the handle to cancel it.
+     */
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        long ticks = deadlineTick - currentTick;
+        Timeout<T> timeout = new Timeout<>(item, (int) (deadlineTick % buckets.size()), (ticks - 1) / buckets.size());
+        buckets.get(timeout.bucket).add(timeout);
+        return timeout;
+    }
+
+    public synchronized void cancel(Timeout<T> timeout) {
+        buckets.get(timeout.bucket).remove(timeout);
+    }
+
+    /**
+     * Moves the wheel up to nowMillis and hands every expired item to onExpire.
+     * The callback runs after the wheel's lock is released.
+     */
+    public void advance(long nowMillis, Consumer<T> onExpire) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMillis;
+            long passed = targetTick - currentTick;
+            // After a pause longer than one turn every bucket is visited once, counting
+            // how often its tick came round in the meantime
+            long steps = Math.min(passed, buckets.size());
+            for (long step = 1; step <= steps; step++) {
+                long visits = (passed - step) / buckets.size() + 1;
+                Iterator<Timeout<T>> bucket = buckets.get((int) ((currentTick + step) % buckets.size())).iterator();
+                while (bucket.hasNext()) {
+                    Timeout<T> timeout = bucket.next();
+                    if (timeout.rounds < visits) {
+                        bucket.remove();
+                        expired.add(timeout.item);
+                    } else {
+                        timeout.rounds -= visits;
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        expired.forEach(onExpire);
+    }
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final int bucket;
+        // Full turns of the wheel still to wait once the bucket comes round
+        private long rounds;
+
+        private Timeout(T item, int bucket, long rounds) {
+            this.item = item;
+            this.bucket = bucket;
+            this.rounds = rounds;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.hms.repository;
+
+import com.example.hms.dto.AppointmentFilter;
+import com.example.hms.model.AppointmentStatus;
+import com.example.hms.service.ChangeSequence;
+import com.example.hms.utils.PageCursor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query-plan regression suite: runs every repository list/lookup query against seeded
+ * MySQL data, EXPLAINs each SELECT it sent (with the same bind values) and fails on a
+ * full table scan (type=ALL) or a table accessed without an index. H2 plans differently,
+ * so this needs a real MySQL and is opt-in; the database is created and dropped:
+ * mvn test -Dtest=RepositoryExplainTests -Dexplain=true
+ *     [-Dexplain.url=jdbc:mysql://host:3306/hms_explain -Dexplain.username=... -Dexplain.password=...]
+ */
+@EnabledIfSystemProperty(named = "explain", matches = "true")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ ChangeSequence.class, RepositoryExplainTests.CaptureConfig.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryExplainTests {
+
+	private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/hms_explain?createDatabaseIfNotExist=true"
+		+ "&useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+	private static final int DOCTORS = 50;
+	private static final int PATIENTS = 5_000;
+	private static final int APPOINTMENTS = 50_000;
+	private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0);
+	private static final String[] SPECIALIZATIONS = {
+		"Cardiology", "Dermatology", "Neurology", "Oncology", "Pediatrics",
+		"Orthopedics", "Psychiatry", "Radiology", "Urology", "Endocrinology"
+	};
+
+	@DynamicPropertySource
+	static void mysql(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> System.getProperty("explain.url", DEFAULT_URL));
+		registry.add("spring.datasource.username", () -> System.getProperty("explain.username", "root"));
+		registry.add("spring.datasource.password", () -> System.getProperty("explain.password", "root"));
+	}
+
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private DataSource dataSource;
+	@Autowired private AppointmentRepository appointmentRepository;
+	@Autowired private MedicalRecordRepository recordRepository;
+	@Autowired private DoctorRepository doctorRepository;
+	@Autowired private PatientRepository patientRepository;
+
+	@BeforeAll
+	void seed() {
+		List<Object[]> users = new ArrayList<>();
+		for (int i = 1; i <= DOCTORS + PATIENTS; i++) {
+			users.add(new Object[] { i, "user" + i, "x", i <= DOCTORS ? "ROLE_DOCTOR" : "ROLE_PATIENT" });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, role) VALUES (?, ?, ?, ?)", users);
+
+		List<Object[]> doctors = new ArrayList<>();
+		for (int i = 1; i <= DOCTORS; i++) {
+			doctors.add(new Object[] { i, i, "Doctor " + i, SPECIALIZATIONS[i % SPECIALIZATIONS.length] });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO doctor (id, user_id, name, specialization) VALUES (?, ?, ?, ?)", doctors);
+
+		List<Object[]> patients = new ArrayList<>();
+		for (int i = 1; i <= PATIENTS; i++) {
+			patients.add(new Object[] { i, DOCTORS + i, "Patient " + i });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO patient (id, user_id, name) VALUES (?, ?, ?)", patients);
+
+		// Appointment i: doctor i % DOCTORS, one half-hour slot per doctor per round
+		List<Object[]> appointments = new ArrayList<>();
+		List<Object[]> records = new ArrayList<>();
+		AppointmentStatus[] statuses = AppointmentStatus.values();
+		for (int i = 1; i <= APPOINTMENTS; i++) {
+			Timestamp time = Timestamp.valueOf(BASE.plusMinutes(30L * (i / DOCTORS)));
+			String status = statuses[i % statuses.length].name();
+			long doctorId = 1 + i % DOCTORS;
+			long patientId = 1 + i % PATIENTS;
+			appointments.add(new Object[] { i, time, status, doctorId, patientId, time.toString(),
+				"CANCELLED".equals(status) ? null : time, i });
+			if ("COMPLETED".equals(status)) {
+				records.add(new Object[] { i, time, "Diagnosis " + i, "Notes " + i, doctorId, patientId, i, APPOINTMENTS + i });
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO appointment (id, appointment_time, status, doctor_id, patient_id, "
+			+ "display_time, active_slot, change_seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", appointments);
+		jdbcTemplate.batchUpdate("INSERT INTO medical_record (id, recorded_at, diagnosis, consultation_notes, "
+			+ "doctor_id, patient_id, appointment_id, change_seq) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", records);
+
+		jdbcTemplate.execute("ANALYZE TABLE users, doctor, patient, appointment, medical_record");
+	}
+
+	@BeforeEach
+	void resetCapture() {
+		CaptureConfig.captured.clear();
+	}
+
+	// --- Appointment search (criteria) ---
+
+	@Test
+	void searchPlans() throws SQLException {
+		LocalDateTime mid = BASE.plusDays(100);
+		assertUsesIndexes(() -> appointmentRepository.search(filter(null, null), null, 51));
+		assertUsesIndexes(() -> appointmentRepository.search(filter(7L, null), null, 51));
+		assertUsesIndexes(() -> appointmentRepository.search(filter(null, 42L), null, 51));
+		assertUsesIndexes(() -> appointmentRepository.search(filter(7L, null), new PageCursor(mid, 1234L), 51));
+
+		AppointmentFilter byStatus = filter(null, null);
+		byStatus.setStatus(AppointmentStatus.SCHEDULED);
+		byStatus.setStartDate(mid.toLocalDate());
+		byStatus.setEndDate(mid.plusDays(7).toLocalDate());
+		assertUsesIndexes(() -> appointmentRepository.search(byStatus, null, 51));
+
+		AppointmentFilter newestFirst = filter(null, 42L);
+		newestFirst.setDirection(Sort.Direction.DESC);
+		assertUsesIndexes(() -> appointmentRepository.search(newestFirst, new PageCursor(mid, 1234L), 51));
+	}
+
+	@Test
+	void appointmentLookupPlans() throws SQLException {
+		assertUsesIndexes(() -> appointmentRepository.findDtosByIds(List.of(10L, 20L, 30L)));
+		assertUsesIndexes(() -> appointmentRepository.findDtoById(10L));
+		assertUsesIndexes(() -> appointmentRepository.findAccessibleDtoById(10L, 11L, null, false));
+		assertUsesIndexes(() -> appointmentRepository.findBookedSlots(7L, BASE.plusDays(100)));
+	}
+
+	@Test
+	void timelinePlans() throws SQLException {
+		assertUsesIndexes(() -> appointmentRepository.findTimelinePage(42L, null, null, null, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> appointmentRepository.findTimelinePage(42L, 43L, BASE.plusDays(500), 25_000L,
+			PageRequest.of(0, 51)));
+	}
+
+	@Test
+	void summaryChangesPlans() throws SQLException {
+		long since = APPOINTMENTS - 500;
+		long upTo = APPOINTMENTS + APPOINTMENTS;
+		assertUsesIndexes(() -> appointmentRepository.findSummaryChanges(null, null, since, upTo, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> appointmentRepository.findSummaryChanges(7L, null, since, upTo, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> appointmentRepository.findSummaryChanges(null, 42L, since, upTo, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> recordRepository.findSummaryChanges(null, null, upTo - 500, upTo, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> recordRepository.findSummaryChanges(7L, null, since, upTo, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> recordRepository.findSummaryChanges(null, 42L, since, upTo, PageRequest.of(0, 51)));
+	}
+
+	@Test
+	void versionTagPlans() throws SQLException {
+		long upTo = APPOINTMENTS + APPOINTMENTS;
+		assertUsesIndexes(() -> appointmentRepository.findMaxChangeSeq(null, null, upTo));
+		assertUsesIndexes(() -> appointmentRepository.findMaxChangeSeq(7L, null, upTo));
+		assertUsesIndexes(() -> appointmentRepository.findMaxChangeSeq(null, 42L, upTo));
+		assertUsesIndexes(() -> recordRepository.findMaxChangeSeq(null, null, upTo));
+		assertUsesIndexes(() -> recordRepository.findMaxChangeSeq(7L, null, upTo));
+		assertUsesIndexes(() -> recordRepository.findMaxChangeSeq(null, 42L, upTo));
+		assertUsesIndexes(() -> doctorRepository.findMaxId());
+	}
+
+	// --- Medical records ---
+
+	@Test
+	void recordSummaryPagePlans() throws SQLException {
+		assertUsesIndexes(() -> recordRepository.findSummaryPage(null, null, null, null, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> recordRepository.findSummaryPage(7L, null, null, null, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> recordRepository.findSummaryPage(null, 42L, null, null, PageRequest.of(0, 51)));
+		assertUsesIndexes(() -> recordRepository.findSummaryPage(7L, null, BASE.plusDays(100), 1234L,
+			PageRequest.of(0, 51)));
+	}
+
+	@Test
+	void recordLookupPlans() throws SQLException {
+		// Statuses cycle: appointment 1 is COMPLETED and has record 1 (patient 2), 2 is CANCELLED
+		assertUsesIndexes(() -> recordRepository.existsByAppointmentId(1L));
+		assertUsesIndexes(() -> recordRepository.existsByAppointmentId(2L));
+		assertUsesIndexes(() -> recordRepository.findAccessibleDtoById(1L, null, 2L, false));
+	}
+
+	// --- Profiles ---
+
+	@Test
+	void profileByUserPlans() throws SQLException {
+		assertUsesIndexes(() -> doctorRepository.findByUserId(7L));
+		assertUsesIndexes(() -> doctorRepository.findIdByUserId(7L));
+		assertUsesIndexes(() -> patientRepository.findByUserId(DOCTORS + 42L));
+		assertUsesIndexes(() -> patientRepository.findIdByUserId(DOCTORS + 42L));
+		assertUsesIndexes(() -> doctorRepository.findBySpecialization("Cardiology"));
+	}
+
+	private static AppointmentFilter filter(Long doctorId, Long patientId) {
+		AppointmentFilter filter = new AppointmentFilter();
+		filter.setDoctorId(doctorId);
+		filter.setPatientId(patientId);
+		return filter;
+	}
+
+	// --- EXPLAIN ---
+
+	private void assertUsesIndexes(Runnable call) throws SQLException {
+		CaptureConfig.captured.clear();
+		CaptureConfig.enabled = true;
+		try {
+			call.run();
+		} finally {
+			CaptureConfig.enabled = false;
+		}
+		List<Captured> selects = new ArrayList<>(CaptureConfig.captured);
+		assertFalse(selects.isEmpty(), "no SELECT captured");
+
+		List<String> failures = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			for (Captured select : selects) {
+				for (String row : explain(connection, select)) {
+					failures.add(row + "\n    in: " + select.sql);
+				}
+			}
+		}
+		assertTrue(failures.isEmpty(), "Unindexed access:\n" + String.join("\n", failures));
+	}
+
+	// Plan rows with type=ALL or no key; derived/subquery placeholders and "no tables" rows have no real table
+	private static List<String> explain(Connection connection, Captured select) throws SQLException {
+		List<String> bad = new ArrayList<>();
+		try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + select.sql)) {
+			for (Bind bind : select.binds) {
+				bind.applyTo(explain);
+			}
+			try (ResultSet rs = explain.executeQuery()) {
+				while (rs.next()) {
+					String table = rs.getString("table");
+					if (table == null || table.startsWith("<")) {
+						continue;
+					}
+					String type = rs.getString("type");
+					String key = rs.getString("key");
+					if ("ALL".equals(type) || key == null) {
+						bad.add("table=" + table + " type=" + type + " key=" + key
+							+ " possible_keys=" + rs.getString("possible_keys") + " rows=" + rs.getString("rows"));
+					}
+				}
+			}
+		}
+		return bad;
+	}
+
+	// --- Statement capture ---
+
+	/**
+	 * Wraps the DataSource so that, while enabled, every executed SELECT is recorded with
+	 * its bind calls, to be replayed on an EXPLAIN of the same statement.
+	 */
+	@TestConfiguration
+	static class CaptureConfig {
+
+		static final List<Captured> captured = Collections.synchronizedList(new ArrayList<>());
+		static volatile boolean enabled;
+
+		@Bean
+		static BeanPostProcessor capturingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource target ? new CapturingDataSource(target) : bean;
+				}
+			};
+		}
+	}
+
+	private static final class CapturingDataSource extends DelegatingDataSource {
+
+		private CapturingDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return wrap(super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return wrap(super.getConnection(username, password));
+		}
+
+		private static Connection wrap(Connection connection) {
+			return (Connection) Proxy.newProxyInstance(RepositoryExplainTests.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					if (method.getName().equals("prepareStatement") && args[0] instanceof String sql
+						&& sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+						return wrap((PreparedStatement) result, sql);
+					}
+					return result;
+				});
+		}
+
+		private static PreparedStatement wrap(PreparedStatement statement, String sql) {
+			List<Bind> binds = new ArrayList<>();
+			return (PreparedStatement) Proxy.newProxyInstance(RepositoryExplainTests.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+					String name = method.getName();
+					if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+						binds.add(new Bind(method, args.clone()));
+					} else if (name.equals("clearParameters")) {
+						binds.clear();
+					} else if (CaptureConfig.enabled && (name.equals("executeQuery") || name.equals("execute"))) {
+						CaptureConfig.captured.add(new Captured(sql, new ArrayList<>(binds)));
+					}
+					return invoke(statement, method, args);
+				});
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	private record Captured(String sql, List<Bind> binds) {
+	}
+
+	private record Bind(Method method, Object[] args) {
+		void applyTo(PreparedStatement statement) throws SQLException {
+			try {
+				method.invoke(statement, args);
+			} catch (ReflectiveOperationException e) {
+				throw new SQLException("Cannot replay " + method.getName(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package com.example.hms.repository;
+
+import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentFilter;
+import com.example.hms.dto.AppointmentSummaryDto;
+import com.example.hms.dto.MedicalRecordSummaryDto;
+import com.example.hms.dto.TimelineEntryDto;
+import com.example.hms.enums.RoleName;
+import com.example.hms.model.Appointment;
+import com.example.hms.model.AppointmentStatus;
+import com.example.hms.model.Doctor;
+import com.example.hms.model.MedicalRecord;
+import com.example.hms.model.Patient;
+import com.example.hms.model.User;
+import com.example.hms.service.ChangeSequence;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * List queries must cost exactly one SQL statement regardless of the number of rows
+ * (no per-row record lookups or lazy doctor/patient loads), and the access-path indexes
+ * declared on the entities must exist in the generated schema. Runs against H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(ChangeSequence.class)
+class RepositoryQueryTests {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+	@Autowired private TestEntityManager entityManager;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+	@Autowired private DataSource dataSource;
+	@Autowired private AppointmentRepository appointmentRepository;
+	@Autowired private MedicalRecordRepository recordRepository;
+
+	private Statistics statistics;
+	private Doctor cardiologist;
+	private Patient patient;
+	private final List<Long> appointmentIds = new ArrayList<>();
+	private Long documentedId;
+
+	@BeforeEach
+	void setUp() {
+		cardiologist = doctor("cardio", "Cardiology");
+		Doctor dermatologist = doctor("derm", "Dermatology");
+		patient = patient("alice");
+		Patient other = patient("bob");
+
+		for (int i = 0; i < 10; i++) {
+			appointmentIds.add(appointment(i % 2 == 0 ? cardiologist : dermatologist, i < 6 ? patient : other,
+				BASE.plusDays(i)).getId());
+		}
+		Appointment documented = entityManager.find(Appointment.class, appointmentIds.get(0));
+		documented.setStatus(AppointmentStatus.COMPLETED);
+		MedicalRecord record = new MedicalRecord();
+		record.setAppointment(documented);
+		record.setDoctor(cardiologist);
+		record.setPatient(patient);
+		record.setDiagnosis("Essential hypertension");
+		record.setConsultationNotes("Blood pressure high.");
+		record.setRecordedAt(BASE.plusHours(1));
+		entityManager.persist(record);
+		documentedId = documented.getId();
+
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	// --- One statement per list call ---
+
+	@Test
+	void unscopedSearchIsOneStatement() {
+		List<AppointmentSummaryDto> rows = appointmentRepository.search(new AppointmentFilter(), null, 100);
+
+		assertEquals(10, rows.size());
+		assertSingleStatement();
+		AppointmentSummaryDto first = rows.get(0);
+		assertEquals(documentedId, first.getId());
+		assertTrue(first.isHasRecord());
+		assertEquals("Dr cardio", first.getDoctorName());
+		assertEquals("alice", first.getPatientName());
+		assertFalse(rows.get(1).isHasRecord());
+	}
+
+	@Test
+	void filteredSearchIsOneStatement() {
+		AppointmentFilter filter = new AppointmentFilter();
+		filter.setPatientId(patient.getId());
+		filter.setSpecialization("Cardiology");
+		filter.setStatus(AppointmentStatus.SCHEDULED);
+
+		List<AppointmentSummaryDto> rows = appointmentRepository.search(filter, null, 100);
+
+		assertEquals(2, rows.size()); // days 2 and 4; day 0 is COMPLETED
+		assertSingleStatement();
+	}
+
+	@Test
+	void dtosByIdsIsOneStatement() {
+		List<AppointmentDto> rows = appointmentRepository.findDtosByIds(appointmentIds);
+
+		assertEquals(10, rows.size());
+		assertSingleStatement();
+		assertTrue(rows.get(0).isHasRecord());
+		assertNotNull(rows.get(9).getDoctorName());
+	}
+
+	@Test
+	void recordSummaryPageIsOneStatement() {
+		List<MedicalRecordSummaryDto> rows = recordRepository.findSummaryPage(null, patient.getId(), null, null,
+			PageRequest.of(0, 51));
+
+		assertEquals(1, rows.size());
+		assertSingleStatement();
+		assertEquals("Dr cardio", rows.get(0).getDoctorName());
+	}
+
+	@Test
+	void timelinePageIsOneStatementNewestFirst() {
+		List<TimelineEntryDto> rows = appointmentRepository.findTimelinePage(patient.getId(), null, null, null,
+			PageRequest.of(0, 51));
+
+		assertEquals(6, rows.size());
+		assertSingleStatement();
+		assertTrue(rows.get(0).getAppointmentTime().isAfter(rows.get(5).getAppointmentTime()));
+		assertEquals(documentedId, rows.get(5).getAppointmentId());
+		assertEquals("Essential hypertension", rows.get(5).getDiagnosis());
+		assertNull(rows.get(0).getRecordId());
+	}
+
+	private void assertSingleStatement() {
+		assertEquals(1, statistics.getPrepareStatementCount(), "SQL statements");
+		assertEquals(0, statistics.getEntityLoadCount(), "entities loaded (lazy associations)");
+	}
+
+	// --- Declared indexes ---
+
+	@Test
+	void accessPathIndexesExist() throws Exception {
+		Map<String, List<String>> appointment = indexes("appointment");
+		assertEquals(List.of("DOCTOR_ID", "APPOINTMENT_TIME"), appointment.get("IDX_APPOINTMENT_DOCTOR_TIME"));
+		assertEquals(List.of("PATIENT_ID", "APPOINTMENT_TIME"), appointment.get("IDX_APPOINTMENT_PATIENT_TIME"));
+		assertEquals(List.of("STATUS", "APPOINTMENT_TIME"), appointment.get("IDX_APPOINTMENT_STATUS_TIME"));
+		assertEquals(List.of("APPOINTMENT_TIME"), appointment.get("IDX_APPOINTMENT_TIME"));
+		assertEquals(List.of("DOCTOR_ID", "CHANGE_SEQ"), appointment.get("IDX_APPOINTMENT_DOCTOR_SEQ"));
+		assertEquals(List.of("PATIENT_ID", "CHANGE_SEQ"), appointment.get("IDX_APPOINTMENT_PATIENT_SEQ"));
+		assertEquals(List.of("CHANGE_SEQ"), appointment.get("IDX_APPOINTMENT_SEQ"));
+		assertEquals(List.of("DOCTOR_ID", "ACTIVE_SLOT"), appointment.get("UK_APPOINTMENT_DOCTOR_ACTIVE_SLOT"));
+
+		Map<String, List<String>> record = indexes("medical_record");
+		assertEquals(List.of("DOCTOR_ID", "RECORDED_AT"), record.get("IDX_RECORD_DOCTOR_RECORDED"));
+		assertEquals(List.of("PATIENT_ID", "RECORDED_AT"), record.get("IDX_RECORD_PATIENT_RECORDED"));
+		assertEquals(List.of("RECORDED_AT"), record.get("IDX_RECORD_RECORDED"));
+		assertEquals(List.of("DOCTOR_ID", "CHANGE_SEQ"), record.get("IDX_RECORD_DOCTOR_SEQ"));
+		assertEquals(List.of("PATIENT_ID", "CHANGE_SEQ"), record.get("IDX_RECORD_PATIENT_SEQ"));
+		assertEquals(List.of("CHANGE_SEQ"), record.get("IDX_RECORD_SEQ"));
+
+		assertEquals(List.of("SPECIALIZATION"), indexes("doctor").get("IDX_DOCTOR_SPECIALIZATION"));
+		assertEquals(List.of("USER_ID"), indexes("password_reset_token").get("IDX_RESET_TOKEN_USER"));
+		Map<String, List<String>> attachment = indexes("record_attachment");
+		assertEquals(List.of("RECORD_ID", "ID"), attachment.get("IDX_ATTACHMENT_RECORD"));
+		assertEquals(List.of("SHA256"), attachment.get("IDX_ATTACHMENT_SHA256"));
+	}
+
+	// Index name -> columns in index order, names upper-cased as H2 stores unquoted identifiers
+	private Map<String, List<String>> indexes(String table) throws Exception {
+		Map<String, TreeMap<Short, String>> columns = new HashMap<>();
+		try (Connection connection = dataSource.getConnection();
+			 ResultSet rs = connection.getMetaData().getIndexInfo(null, null, table.toUpperCase(Locale.ROOT), false, false)) {
+			while (rs.next()) {
+				String name = rs.getString("INDEX_NAME");
+				if (name != null) {
+					columns.computeIfAbsent(name.toUpperCase(Locale.ROOT), n -> new TreeMap<>())
+						.put(rs.getShort("ORDINAL_POSITION"), rs.getString("COLUMN_NAME").toUpperCase(Locale.ROOT));
+				}
+			}
+		}
+		Map<String, List<String>> result = new HashMap<>();
+		columns.forEach((name, ordered) -> result.put(name, new ArrayList<>(ordered.values())));
+		return result;
+	}
+
+	// --- Fixtures ---
+
+	private Doctor doctor(String username, String specialization) {
+		Doctor doctor = new Doctor();
+		doctor.setUser(entityManager.persist(new User(username, "x", RoleName.ROLE_DOCTOR)));
+		doctor.setName("Dr " + username);
+		doctor.setSpecialization(specialization);
+		return entityManager.persist(doctor);
+	}
+
+	private Patient patient(String username) {
+		Patient patient = new Patient();
+		patient.setUser(entityManager.persist(new User(username, "x", RoleName.ROLE_PATIENT)));
+		patient.setName(username);
+		return entityManager.persist(patient);
+	}
+
+	private Appointment appointment(Doctor doctor, Patient patient, LocalDateTime time) {
+		Appointment appointment = new Appointment();
+		appointment.setDoctor(doctor);
+		appointment.setPatient(patient);
+		appointment.setAppointmentTime(time);
+		appointment.setDisplayTime(time.toString());
+		appointment.setReason("Check-up");
+		return entityManager.persist(appointment);
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.hms.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilsTests {
+
+	private static final String SECRET = "QUxXQVlTX1VTRV9BVkVSSV9TRUNVUkVfS0VZX0lOX1lPVVJfSE1T";
+
+	private JwtUtils jwtUtils;
+	private Key key;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtils = new JwtUtils();
+		ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+		ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", 16);
+		jwtUtils.init();
+		key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+	}
+
+	@Test
+	void generatedTokenCarriesPrincipalClaims() {
+		UserDetailsImpl principal = UserDetailsImpl.build(7L, "drwho", "ROLE_DOCTOR", 3L);
+		String token = jwtUtils.generateJwtToken(
+			new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+		Claims claims = jwtUtils.verifyJwtToken(token);
+
+		assertNotNull(claims);
+		assertEquals("drwho", claims.getSubject());
+		assertEquals(7L, claims.get("id", Long.class));
+		assertEquals("ROLE_DOCTOR", claims.get("role", String.class));
+		assertEquals(3L, claims.get("profileId", Long.class));
+		assertEquals("drwho", jwtUtils.getUserNameFromJwtToken(token));
+		// Second verification is served from the cache
+		assertSame(claims, jwtUtils.verifyJwtToken(token));
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		String token = token(key, new Date(System.currentTimeMillis() - 1_000));
+
+		assertNull(jwtUtils.verifyJwtToken(token));
+		assertFalse(jwtUtils.validateJwtToken(token));
+		assertThrows(IllegalArgumentException.class, () -> jwtUtils.getClaimsFromJwtToken(token));
+	}
+
+	@Test
+	void cachedTokenIsRejectedOnceItExpires() throws InterruptedException {
+		// exp has second precision, so this token expires within two seconds
+		String token = token(key, new Date(System.currentTimeMillis() + 1_000));
+		assertTrue(jwtUtils.validateJwtToken(token));
+
+		Thread.sleep(2_100);
+
+		assertFalse(jwtUtils.validateJwtToken(token));
+	}
+
+	@Test
+	void tokenSignedWithAnotherKeyIsRejected() {
+		String token = token(Keys.secretKeyFor(SignatureAlgorithm.HS256), new Date(System.currentTimeMillis() + 60_000));
+
+		assertNull(jwtUtils.verifyJwtToken(token));
+		assertThrows(IllegalArgumentException.class, () -> jwtUtils.getUserNameFromJwtToken(token));
+	}
+
+	@Test
+	void tamperedPayloadIsRejected() {
+		String token = token(key, new Date(System.currentTimeMillis() + 60_000));
+		String[] parts = token.split("\\.");
+		String forged = Jwts.builder().setSubject("admin").claim("role", "ROLE_ADMIN")
+			.setExpiration(new Date(System.currentTimeMillis() + 60_000)).compact().split("\\.")[1];
+
+		assertNull(jwtUtils.verifyJwtToken(parts[0] + "." + forged + "." + parts[2]));
+		assertNull(jwtUtils.verifyJwtToken("not-a-token"));
+	}
+
+	private static String token(Key signingKey, Date expiration) {
+		return Jwts.builder()
+			.setSubject("patient1")
+			.claim("id", 11L)
+			.claim("role", "ROLE_PATIENT")
+			.setIssuedAt(new Date(expiration.getTime() - 60_000))
+			.setExpiration(expiration)
+			.signWith(signingKey, SignatureAlgorithm.HS256)
+			.compact();
+	}
+}
@@ -0,0 +1,228 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.AppointmentDto;
+import com.example.hms.dto.AppointmentRequest;
+import com.example.hms.enums.RoleName;
+import com.example.hms.model.Appointment;
+import com.example.hms.model.Doctor;
+import com.example.hms.model.Patient;
+import com.example.hms.repository.AppointmentRepository;
+import com.example.hms.repository.DoctorRepository;
+import com.example.hms.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test of the double-booking guard: many threads book the same doctor slot at
+ * once through AppointmentService, with the real DoctorScheduleIndex and striped doctor
+ * locks in front of a mocked repository. Exactly one booking may win. The throughput
+ * figure printed by manySlotsAcrossManyDoctors is that of the in-memory guard only
+ * (the repository is a mock), not of the database.
+ */
+class AppointmentBookingConcurrencyTests {
+
+	private static final int THREADS = 32;
+	private static final int DOCTORS = 50;
+	private static final int SLOTS_PER_DOCTOR = 40;
+	private static final int ATTEMPTS_PER_SLOT = 3;
+	private static final LocalDateTime SLOT = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+	private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+	private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+	private final PatientRepository patientRepository = mock(PatientRepository.class);
+	private final SecurityHelper securityHelper = mock(SecurityHelper.class);
+	private final SlotHoldRegistry slotHolds = mock(SlotHoldRegistry.class);
+	private final AtomicLong ids = new AtomicLong();
+	private volatile long saveDelayMillis = 2;
+	private AppointmentService appointmentService;
+
+	@BeforeEach
+	void setUp() {
+		DoctorScheduleIndex scheduleIndex = new DoctorScheduleIndex();
+		ReflectionTestUtils.setField(scheduleIndex, "appointmentRepository", appointmentRepository);
+		ReflectionTestUtils.setField(scheduleIndex, "slotMinutes", 15);
+
+		appointmentService = new AppointmentService();
+		ReflectionTestUtils.setField(appointmentService, "appointmentRepository", appointmentRepository);
+		ReflectionTestUtils.setField(appointmentService, "doctorRepository", doctorRepository);
+		ReflectionTestUtils.setField(appointmentService, "patientRepository", patientRepository);
+		ReflectionTestUtils.setField(appointmentService, "securityHelper", securityHelper);
+		ReflectionTestUtils.setField(appointmentService, "scheduleIndex", scheduleIndex);
+		ReflectionTestUtils.setField(appointmentService, "slotHolds", slotHolds);
+		ReflectionTestUtils.setField(appointmentService, "eventPublisher", mock(ApplicationEventPublisher.class));
+
+		when(securityHelper.getCurrentUserRole()).thenReturn(RoleName.ROLE_ADMIN);
+		when(securityHelper.getCurrentUserId()).thenReturn(1L);
+		when(appointmentRepository.findBookedSlots(anyLong(), any())).thenReturn(List.of());
+		when(slotHolds.isHeldByOther(anyLong(), any(), anyLong())).thenReturn(false);
+		when(patientRepository.findById(anyLong())).thenAnswer(call -> Optional.of(patient(call.getArgument(0))));
+		when(doctorRepository.findById(anyLong())).thenAnswer(call -> Optional.of(doctor(call.getArgument(0))));
+		// A slow INSERT widens the window between the free-slot check and the write
+		when(appointmentRepository.save(any(Appointment.class))).thenAnswer(call -> {
+			if (saveDelayMillis > 0) {
+				Thread.sleep(saveDelayMillis);
+			}
+			Appointment appointment = call.getArgument(0);
+			appointment.setId(ids.incrementAndGet());
+			return appointment;
+		});
+	}
+
+	@Test
+	void sameSlotIsBookedExactlyOnce() throws Exception {
+		List<Outcome> outcomes = bookConcurrently(i -> request(1L, 100L + i, SLOT));
+
+		assertEquals(1, outcomes.stream().filter(o -> o.booked != null).count(), "exactly one booking wins");
+		assertEquals(THREADS - 1, outcomes.stream().filter(o -> o.error instanceof IllegalArgumentException).count(),
+			"every other thread gets a conflict");
+		verify(appointmentRepository, times(1)).save(any(Appointment.class));
+	}
+
+	@Test
+	void overlappingSlotsAreBookedExactlyOnce() throws Exception {
+		// Starts 5 minutes apart all overlap a 15-minute slot starting at SLOT + 5
+		List<Outcome> outcomes = bookConcurrently(i -> request(1L, 100L + i, SLOT.plusMinutes(5 * (i % 3))));
+
+		Set<LocalDateTime> bookedStarts = new HashSet<>();
+		for (Outcome outcome : outcomes) {
+			if (outcome.booked != null) {
+				assertTrue(bookedStarts.add(outcome.booked.getAppointmentTime()));
+			}
+		}
+		for (LocalDateTime a : bookedStarts) {
+			for (LocalDateTime b : bookedStarts) {
+				assertTrue(a.equals(b) || Math.abs(Duration.between(a, b).toMinutes()) >= 15,
+					"booked slots must not overlap: " + a + " / " + b);
+			}
+		}
+	}
+
+	@Test
+	void differentDoctorsBookInParallel() throws Exception {
+		List<Outcome> outcomes = bookConcurrently(i -> request(1L + i, 100L + i, SLOT));
+
+		assertEquals(THREADS, outcomes.stream().filter(o -> o.booked != null).count());
+		verify(appointmentRepository, times(THREADS)).save(any(Appointment.class));
+	}
+
+	@Test
+	void manySlotsAcrossManyDoctors() throws Exception {
+		saveDelayMillis = 0;
+		int slots = DOCTORS * SLOTS_PER_DOCTOR;
+		int attempts = slots * ATTEMPTS_PER_SLOT;
+		// Attempt i targets slot i % slots, so every slot is contended by several threads
+		IntFunction<AppointmentRequest> requests = i -> {
+			int slot = i % slots;
+			return request(1L + slot / SLOTS_PER_DOCTOR, 100L + i, SLOT.plusMinutes(15L * (slot % SLOTS_PER_DOCTOR)));
+		};
+
+		long startNanos = System.nanoTime();
+		List<Outcome> outcomes = bookConcurrently(attempts, requests);
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+		Set<String> booked = new HashSet<>();
+		for (Outcome outcome : outcomes) {
+			if (outcome.booked != null) {
+				assertTrue(booked.add(outcome.booked.getDoctorId() + "@" + outcome.booked.getAppointmentTime()),
+					"duplicate booking " + outcome.booked.getDoctorId() + "@" + outcome.booked.getAppointmentTime());
+			}
+		}
+		assertEquals(slots, booked.size(), "every slot booked exactly once");
+		assertEquals(attempts - slots, outcomes.stream().filter(o -> o.error instanceof IllegalArgumentException).count());
+		verify(appointmentRepository, times(slots)).save(any(Appointment.class));
+		System.out.printf("Booked %,d slots of %,d doctors in %,d attempts on %d threads: %.3f s, %,.0f ops/sec, 0 duplicates%n",
+			slots, DOCTORS, attempts, THREADS, seconds, attempts / seconds);
+	}
+
+	private List<Outcome> bookConcurrently(IntFunction<AppointmentRequest> requests) throws Exception {
+		return bookConcurrently(THREADS, requests);
+	}
+
+	private List<Outcome> bookConcurrently(int attempts, IntFunction<AppointmentRequest> requests) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger next = new AtomicInteger();
+		List<Future<Outcome>> futures = new ArrayList<>();
+		try {
+			for (int t = 0; t < attempts; t++) {
+				futures.add(pool.submit(() -> {
+					AppointmentRequest request = requests.apply(next.getAndIncrement());
+					start.await();
+					try {
+						return new Outcome(appointmentService.bookAppointment(request), null);
+					} catch (RuntimeException e) {
+						return new Outcome(null, e);
+					}
+				}));
+			}
+			start.countDown();
+			List<Outcome> outcomes = new ArrayList<>();
+			for (Future<Outcome> future : futures) {
+				outcomes.add(future.get(30, TimeUnit.SECONDS));
+			}
+			return outcomes;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static AppointmentRequest request(Long doctorId, Long patientId, LocalDateTime time) {
+		AppointmentRequest request = new AppointmentRequest();
+		request.setDoctorId(doctorId);
+		request.setPatientId(patientId);
+		request.setAppointmentTime(time);
+		request.setDisplayTimeString(time.toString());
+		return request;
+	}
+
+	private static Doctor doctor(Long id) {
+		Doctor doctor = new Doctor();
+		doctor.setId(id);
+		doctor.setName("Doctor " + id);
+		return doctor;
+	}
+
+	private static Patient patient(Long id) {
+		Patient patient = new Patient();
+		patient.setId(id);
+		patient.setName("Patient " + id);
+		return patient;
+	}
+
+	private static final class Outcome {
+		private final AppointmentDto booked;
+		private final RuntimeException error;
+
+		private Outcome(AppointmentDto booked, RuntimeException error) {
+			this.booked = booked;
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.example.hms.service;
+
+import com.example.hms.dto.MedicalRecordRequest;
+import com.example.hms.enums.RoleName;
+import com.example.hms.model.Appointment;
+import com.example.hms.model.AppointmentStatus;
+import com.example.hms.model.Doctor;
+import com.example.hms.model.MedicalRecord;
+import com.example.hms.model.Patient;
+import com.example.hms.repository.AppointmentRepository;
+import com.example.hms.repository.DoctorRepository;
+import com.example.hms.repository.MedicalRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test of the check-then-act in MedicalRecordService.createRecord: many threads
+ * document the same appointments at once. The mocked transaction manager applies a
+ * status change only on commit, so a status change without its record would show up as
+ * a COMPLETED appointment with no record.
+ */
+class MedicalRecordCreationConcurrencyTests {
+
+	private static final int THREADS = 32;
+	private static final int APPOINTMENTS = 200;
+	private static final int ATTEMPTS_PER_APPOINTMENT = 8;
+	private static final long DOCTOR_ID = 1L;
+
+	private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+	private final MedicalRecordRepository recordRepository = mock(MedicalRecordRepository.class);
+	private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+	private final SecurityHelper securityHelper = mock(SecurityHelper.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	// The "database": committed records and status changes per appointment
+	private final Map<Long, MedicalRecord> records = new ConcurrentHashMap<>();
+	private final Map<Long, AtomicInteger> statusChanges = new ConcurrentHashMap<>();
+	// Status changes of the calling thread's open transaction
+	private final ThreadLocal<List<Long>> pendingStatusChanges = ThreadLocal.withInitial(ArrayList::new);
+	private final AtomicLong ids = new AtomicLong();
+	private MedicalRecordService recordService;
+
+	@BeforeEach
+	void setUp() {
+		recordService = new MedicalRecordService();
+		ReflectionTestUtils.setField(recordService, "recordRepository", recordRepository);
+		ReflectionTestUtils.setField(recordService, "doctorRepository", doctorRepository);
+		ReflectionTestUtils.setField(recordService, "appointmentRepository", appointmentRepository);
+		ReflectionTestUtils.setField(recordService, "securityHelper", securityHelper);
+		ReflectionTestUtils.setField(recordService, "eventPublisher", mock(ApplicationEventPublisher.class));
+		ReflectionTestUtils.setField(recordService, "changeSequence", mock(ChangeSequence.class));
+		ReflectionTestUtils.setField(recordService, "searchIndex", mock(RecordSearchIndex.class));
+		ReflectionTestUtils.setField(recordService, "transactionTemplate", new TransactionTemplate(transactionManager));
+
+		when(securityHelper.getCurrentUserRole()).thenReturn(RoleName.ROLE_DOCTOR);
+		when(securityHelper.getCurrentProfileId()).thenReturn(Optional.of(DOCTOR_ID));
+		when(doctorRepository.getReferenceById(anyLong())).thenAnswer(call -> doctor(call.getArgument(0)));
+		when(appointmentRepository.findById(anyLong())).thenAnswer(call -> Optional.of(appointment(call.getArgument(0))));
+		when(appointmentRepository.findDtoById(anyLong())).thenReturn(Optional.empty());
+		when(appointmentRepository.markCompleted(anyLong(), anyLong())).thenAnswer(call -> {
+			pendingStatusChanges.get().add(call.getArgument(0));
+			return 1;
+		});
+		when(recordRepository.existsByAppointmentId(anyLong()))
+			.thenAnswer(call -> records.containsKey(call.<Long>getArgument(0)));
+		// A slow INSERT widens the window between the existence check and the write
+		when(recordRepository.saveAndFlush(any(MedicalRecord.class))).thenAnswer(call -> {
+			Thread.sleep(1);
+			MedicalRecord record = call.getArgument(0);
+			record.setId(ids.incrementAndGet());
+			if (records.putIfAbsent(record.getAppointment().getId(), record) != null) {
+				throw new DataIntegrityViolationException("Duplicate entry for key 'appointment_id'");
+			}
+			return record;
+		});
+
+		when(transactionManager.getTransaction(any())).thenAnswer(call -> mock(TransactionStatus.class));
+		doAnswer(call -> {
+			for (Long appointmentId : pendingStatusChanges.get()) {
+				statusChanges.computeIfAbsent(appointmentId, id -> new AtomicInteger()).incrementAndGet();
+			}
+			pendingStatusChanges.remove();
+			return null;
+		}).when(transactionManager).commit(any());
+		doAnswer(call -> {
+			pendingStatusChanges.remove();
+			return null;
+		}).when(transactionManager).rollback(any());
+	}
+
+	@Test
+	void eachAppointmentGetsExactlyOneRecordAndOneStatusChange() throws Exception {
+		int attempts = APPOINTMENTS * ATTEMPTS_PER_APPOINTMENT;
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < attempts; i++) {
+				long appointmentId = 1 + i % APPOINTMENTS;
+				futures.add(pool.submit(() -> {
+					start.await();
+					try {
+						recordService.createRecord(request(appointmentId));
+						return true;
+					} catch (IllegalArgumentException e) {
+						return false;
+					}
+				}));
+			}
+			long startNanos = System.nanoTime();
+			start.countDown();
+			int created = 0;
+			for (Future<Boolean> future : futures) {
+				created += future.get(30, TimeUnit.SECONDS) ? 1 : 0;
+			}
+			double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+			assertEquals(APPOINTMENTS, created, "one successful submission per appointment");
+			assertEquals(APPOINTMENTS, records.size());
+			assertEquals(APPOINTMENTS, statusChanges.size());
+			statusChanges.forEach((id, changes) -> assertEquals(1, changes.get(), "status changes of appointment " + id));
+			System.out.printf("Documented %,d appointments in %,d attempts on %d threads: %.3f s, %,.0f ops/sec, 0 duplicates%n",
+				APPOINTMENTS, attempts, THREADS, seconds, attempts / seconds);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void failedInsertRollsBackStatusChange() {
+		// A record written by another instance that the existence check has not seen yet
+		long appointmentId = 7L;
+		when(recordRepository.existsByAppointmentId(appointmentId)).thenReturn(false);
+		MedicalRecord existing = new MedicalRecord();
+		existing.setAppointment(appointment(appointmentId));
+		records.put(appointmentId, existing);
+
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+			() -> recordService.createRecord(request(appointmentId)));
+
+		assertTrue(error.getMessage().startsWith("Medical Record already exists"));
+		assertNull(statusChanges.get(appointmentId), "COMPLETED must not be committed without the record");
+	}
+
+	private static MedicalRecordRequest request(long appointmentId) {
+		MedicalRecordRequest request = new MedicalRecordRequest();
+		request.setAppointmentId(appointmentId);
+		request.setDiagnosis("Acute bronchitis");
+		request.setConsultationNotes("Cough for five days.");
+		return request;
+	}
+
+	private static Appointment appointment(Long id) {
+		Appointment appointment = new Appointment();
+		appointment.setId(id);
+		appointment.setStatus(AppointmentStatus.SCHEDULED);
+		appointment.setDoctor(doctor(DOCTOR_ID));
+		Patient patient = new Patient();
+		patient.setId(1000 + id);
+		patient.setName("Patient " + id);
+		appointment.setPatient(patient);
+		return appointment;
+	}
+
+	private static Doctor doctor(Long id) {
+		Doctor doctor = new Doctor();
+		doctor.setId(id);
+		doctor.setName("Doctor " + id);
+		return doctor;
+	}
+}
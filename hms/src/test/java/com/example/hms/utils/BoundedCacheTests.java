@@ -0,0 +1,69 @@
+package com.example.hms.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BoundedCacheTests {
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxSize() {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(3, 0);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		// Touching a makes b the eldest
+		assertEquals(1, cache.get("a"));
+
+		cache.put("d", 4);
+
+		assertEquals(3, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.get("a"));
+		assertEquals(3, cache.get("c"));
+		assertEquals(4, cache.get("d"));
+	}
+
+	@Test
+	void entriesExpireAfterDefaultTtl() throws InterruptedException {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10, 50);
+		cache.put("a", 1);
+		assertEquals(1, cache.get("a"));
+
+		Thread.sleep(120);
+
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void entriesExpireAtExplicitDeadline() {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10, 0);
+		long now = System.currentTimeMillis();
+		cache.put("past", 1, now - 1);
+		cache.put("future", 2, now + 60_000);
+		cache.put("forever", 3);
+
+		assertNull(cache.get("past"));
+		assertEquals(2, cache.get("future"));
+		assertEquals(3, cache.get("forever"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	void loaderResultIsCachedButNullIsNot() {
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals(7, cache.get("a", k -> { loads.incrementAndGet(); return 7; }));
+		assertEquals(7, cache.get("a", k -> { loads.incrementAndGet(); return 8; }));
+		assertNull(cache.get("b", k -> { loads.incrementAndGet(); return null; }));
+		assertNull(cache.get("b", k -> { loads.incrementAndGet(); return null; }));
+
+		assertEquals(3, loads.get());
+		assertEquals(1, cache.size());
+	}
+}
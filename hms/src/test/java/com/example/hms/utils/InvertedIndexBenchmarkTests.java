@@ -0,0 +1,72 @@
+package com.example.hms.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query latency of the record search index at 1M synthetic records. Opt-in, as it needs
+ * a couple of GB of heap:
+ * mvn test -Dtest=InvertedIndexBenchmarkTests -Dbenchmark=true [-Dbenchmark.records=1000000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InvertedIndexBenchmarkTests {
+
+	private static final String[] DIAGNOSES = {
+		"Type 2 diabetes mellitus", "Essential hypertension", "Acute bronchitis", "Migraine without aura",
+		"Iron deficiency anaemia", "Chest pain, unspecified", "Asthma exacerbation", "Lower back pain",
+		"Urinary tract infection", "Hypothyroidism"
+	};
+
+	private static final String[] WORDS = {
+		"patient", "reports", "pain", "chest", "mild", "severe", "fever", "cough", "since", "days", "weeks",
+		"advised", "rest", "fluids", "follow", "up", "review", "blood", "pressure", "sugar", "levels", "stable",
+		"prescribed", "medication", "dose", "increased", "reduced", "no", "known", "allergies", "history",
+		"of", "smoking", "exercise", "diet", "counselling", "referred", "to", "cardiology", "endocrinology"
+	};
+
+	@Test
+	void queryLatencyAtScale() {
+		int records = Integer.getInteger("benchmark.records", 1_000_000);
+		InvertedIndex index = new InvertedIndex();
+		Random random = new Random(42);
+
+		long buildStart = System.nanoTime();
+		for (int id = 1; id <= records; id++) {
+			StringBuilder notes = new StringBuilder();
+			for (int w = 0; w < 25; w++) {
+				notes.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+			}
+			index.add(id, 1 + random.nextInt(500), 1 + random.nextInt(100_000),
+				DIAGNOSES[random.nextInt(DIAGNOSES.length)], notes.toString());
+		}
+		long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+		String[] queries = { "diabetes", "diab*", "\"chest pain\"", "hypertension review", "\"blood pressure\" stable" };
+		System.out.printf("Indexed %,d records in %,d ms%n", records, buildMillis);
+		for (String query : queries) {
+			// Warm up, then time: global (admin), one doctor, one patient
+			index.search(query, null, null, 20);
+			System.out.printf("%-28s admin %6.2f ms | doctor %6.2f ms | patient %6.2f ms%n", query,
+				time(index, query, null, null), time(index, query, 42L, null), time(index, query, null, 4242L));
+		}
+
+		List<Long> hits = index.search("\"chest pain\"", null, null, 20);
+		assertFalse(hits.isEmpty());
+		assertTrue(hits.get(0) > hits.get(hits.size() - 1), "newest records come first");
+	}
+
+	private static double time(InvertedIndex index, String query, Long owner, Long subject) {
+		int runs = 20;
+		long start = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			index.search(query, owner, subject, 20);
+		}
+		return (System.nanoTime() - start) / 1_000_000.0 / runs;
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.hms.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTests {
+
+	private InvertedIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new InvertedIndex();
+		// id, owner (doctor), subject (patient), diagnosis, notes
+		index.add(1, 10, 100, "Type 2 diabetes mellitus", "Blood sugar levels stable, continue metformin.");
+		index.add(2, 10, 200, "Chest pain, unspecified", "Patient reports pain in the chest since two days.");
+		index.add(3, 20, 100, "Diabetic neuropathy", "Reports chest tightness; pain radiating to left arm.");
+		index.add(4, 20, 300, "Essential hypertension", "Blood pressure high, advised diet and exercise.");
+	}
+
+	@Test
+	void termQueryIsCaseInsensitive() {
+		assertEquals(List.of(4L), index.search("HYPERTENSION", null, null, 10));
+	}
+
+	@Test
+	void prefixQueryMatchesEveryExpansion() {
+		assertEquals(List.of(3L, 1L), index.search("diab*", null, null, 10));
+		assertEquals(List.of(), index.search("diabx*", null, null, 10));
+	}
+
+	@Test
+	void phraseQueryRequiresConsecutiveWords() {
+		// Doc 2 has "chest pain" in the diagnosis; doc 3 has both words but not adjacent
+		assertEquals(List.of(2L), index.search("\"chest pain\"", null, null, 10));
+		assertEquals(List.of(3L, 2L), index.search("chest pain", null, null, 10));
+	}
+
+	@Test
+	void phraseNeverSpansTwoFields() {
+		// Doc 1 diagnosis ends with "mellitus", notes start with "blood"
+		assertEquals(List.of(), index.search("\"mellitus blood\"", null, null, 10));
+	}
+
+	@Test
+	void clausesAreAndedTogether() {
+		assertEquals(List.of(1L), index.search("blood diab*", null, null, 10));
+	}
+
+	@Test
+	void ownerAndSubjectScopeResults() {
+		assertEquals(List.of(1L), index.search("diab*", 10L, null, 10), "doctor scope");
+		assertEquals(List.of(3L, 1L), index.search("diab*", null, 100L, 10), "patient scope");
+		assertEquals(List.of(3L), index.search("diab*", 20L, 100L, 10), "doctor and patient scope");
+		assertEquals(List.of(), index.search("diab*", 10L, 300L, 10));
+	}
+
+	@Test
+	void resultsAreNewestFirstAndLimited() {
+		assertEquals(List.of(4L, 1L), index.search("blood", null, null, 10));
+		assertEquals(List.of(4L), index.search("blood", null, null, 1));
+	}
+
+	@Test
+	void reAddingAnIdReplacesTheOldVersion() {
+		index.add(1, 10, 100, "Type 1 diabetes mellitus", "Insulin dose adjusted.");
+
+		assertEquals(List.of(1L), index.search("insulin", null, null, 10));
+		assertEquals(List.of(), index.search("metformin", null, null, 10), "old text no longer matches");
+		assertEquals(List.of(1L), index.search("mellitus", null, null, 10), "no duplicate hits");
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	void removedDocumentsNoLongerMatch() {
+		assertTrue(index.remove(2));
+		assertFalse(index.remove(2));
+
+		assertEquals(List.of(), index.search("\"chest pain\"", null, null, 10));
+		assertEquals(List.of(3L), index.search("chest", null, null, 10));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void emptyOrSymbolOnlyQueriesMatchNothing() {
+		assertEquals(List.of(), index.search("", null, null, 10));
+		assertEquals(List.of(), index.search("  ;; ", null, null, 10));
+		assertEquals(List.of(), index.search(null, null, null, 10));
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.hms.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedLocksTests {
+
+	private int counter;
+
+	@Test
+	void sameKeyIsMutuallyExclusive() throws Exception {
+		StripedLocks locks = new StripedLocks(64);
+		int threads = 16;
+		int increments = 20_000;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int t = 0; t < threads; t++) {
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < increments; i++) {
+					// A fresh boxed key each time: equal keys must map to the same stripe
+					Lock lock = locks.forKey(Long.valueOf(4242L));
+					lock.lock();
+					try {
+						counter++; // deliberately not atomic
+					} finally {
+						lock.unlock();
+					}
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+		assertEquals(threads * increments, counter);
+	}
+
+	@Test
+	void equalKeysShareALock() {
+		StripedLocks locks = new StripedLocks(64);
+		assertSame(locks.forKey(7L), locks.forKey(Long.valueOf(7L)));
+	}
+
+	@Test
+	void sequentialIdsSpreadAcrossStripes() {
+		StripedLocks locks = new StripedLocks(64);
+		Set<Lock> used = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (long id = 1; id <= 64; id++) {
+			used.add(locks.forKey(id));
+		}
+		assertTrue(used.size() >= 32, "64 sequential ids used only " + used.size() + " stripes");
+	}
+}